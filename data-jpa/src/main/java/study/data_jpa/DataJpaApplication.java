@@ -4,12 +4,11 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.data.domain.AuditorAware;
-import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import study.data_jpa.audit.TransactionScopedAuditorAware;
 
-import java.util.Optional;
 import java.util.UUID;
 
-@EnableJpaAuditing // 등록일 수정일을 넣기 위해서는 반드시 스프링 JPA 를 쓸 때 넣어야하는 어노테이션
+// @EnableJpaAuditing 은 쓰지 않는다. 등록일 / 수정일은 AuditListener 가 넣는다. (AuditingEntityListener 로 돌아가려면 다시 붙인다)
 @SpringBootApplication
 public class DataJpaApplication {
 
@@ -19,6 +18,7 @@ public class DataJpaApplication {
 
 	@Bean
 	public AuditorAware<String> auditorProvider() {
-		return () -> Optional.of(UUID.randomUUID().toString());
+		// 실제로는 SecurityContext 의 로그인 사용자를 꺼낸다. 요청 / 트랜잭션마다 한번만 구한다.
+		return new TransactionScopedAuditorAware(() -> UUID.randomUUID().toString());
 	}
 }
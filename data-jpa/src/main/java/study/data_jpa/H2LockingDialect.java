@@ -0,0 +1,81 @@
+package study.data_jpa;
+
+import org.hibernate.LockOptions;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.engine.jdbc.dialect.spi.DialectResolutionInfo;
+
+import java.math.BigDecimal;
+
+/*
+H2 도 FOR UPDATE NOWAIT / WAIT n(초) / SKIP LOCKED 를 지원하는데 (2.2 부터) hibernate H2Dialect 는 전부 그냥 FOR UPDATE 로 만든다.
+-> jakarta.persistence.lock.timeout 힌트가 무시되고 H2 세션 기본 락 타임아웃으로 기다리게 되니까, 힌트대로 SQL 을 만들도록 덮어쓴다.
+(PostgreSQL / MySQL 8 / Oracle dialect 는 원래 지원하니까 이런 클래스가 필요 없다.)
+ */
+public class H2LockingDialect extends H2Dialect {
+
+    public H2LockingDialect() {
+    }
+
+    public H2LockingDialect(DialectResolutionInfo info) {
+        super(info);
+    }
+
+    @Override
+    public boolean supportsNoWait() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsWait() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsSkipLocked() {
+        return true;
+    }
+
+    @Override
+    public String getForUpdateNowaitString() {
+        return " for update nowait";
+    }
+
+    @Override
+    public String getForUpdateNowaitString(String aliases) {
+        return getForUpdateNowaitString();
+    }
+
+    @Override
+    public String getForUpdateSkipLockedString() {
+        return " for update skip locked";
+    }
+
+    @Override
+    public String getForUpdateSkipLockedString(String aliases) {
+        return getForUpdateSkipLockedString();
+    }
+
+    // timeout 은 ms (LockOptions), H2 의 WAIT 는 초 단위 소수
+    @Override
+    public String getWriteLockString(int timeout) {
+        if (timeout == LockOptions.SKIP_LOCKED) return getForUpdateSkipLockedString();
+        if (timeout == LockOptions.NO_WAIT) return getForUpdateNowaitString();
+        if (timeout > 0) return " for update wait " + BigDecimal.valueOf(timeout, 3).toPlainString();
+        return getForUpdateString();
+    }
+
+    @Override
+    public String getWriteLockString(String aliases, int timeout) {
+        return getWriteLockString(timeout);
+    }
+
+    @Override
+    public String getReadLockString(int timeout) {
+        return getWriteLockString(timeout); // H2 는 FOR SHARE 가 없어서 읽기 락도 FOR UPDATE
+    }
+
+    @Override
+    public String getReadLockString(String aliases, int timeout) {
+        return getWriteLockString(timeout);
+    }
+}
@@ -0,0 +1,21 @@
+package study.data_jpa;
+
+import com.zaxxer.hikari.SQLExceptionOverride;
+
+import java.sql.SQLException;
+
+/*
+Hikari 는 SQLTimeoutException 이 나면 커넥션이 고장났다고 보고 풀에서 버린다. (바로 close -> 그 뒤 rollback 도 실패)
+H2 는 락 대기 타임아웃 / NOWAIT 실패도 SQLTimeoutException(HYT00) 으로 던지는데, 이건 커넥션 문제가 아니라
+트랜잭션만 롤백하면 되는 정상적인 실패니까 버리지 않는다.
+(spring.datasource.hikari.exception-override-class-name 으로 등록, Hikari 가 기본 생성자로 만든다.)
+ */
+public class LockTimeoutExceptionOverride implements SQLExceptionOverride {
+
+    private static final int H2_LOCK_TIMEOUT = 50200; // org.h2.api.ErrorCode.LOCK_TIMEOUT_1 (h2 는 runtimeOnly)
+
+    @java.lang.Override // SQLExceptionOverride.Override enum 과 이름이 겹친다.
+    public Override adjudicate(SQLException e) {
+        return e.getErrorCode() == H2_LOCK_TIMEOUT ? Override.DO_NOT_EVICT : Override.CONTINUE_EVICT;
+    }
+}
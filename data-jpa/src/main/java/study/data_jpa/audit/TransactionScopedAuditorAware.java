@@ -0,0 +1,60 @@
+package study.data_jpa.audit;
+
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/*
+등록자를 요청 / 트랜잭션마다 한번만 구하는 AuditorAware
+AuditorAware 는 저장하는 엔티티마다 불리는데, 보통 등록자는 요청(로그인 사용자) 동안 바뀌지 않는다.
+- 웹 요청 안이면 request attribute 에 캐시
+- 아니면 트랜잭션 리소스로 캐시하고 트랜잭션이 끝나면 버린다.
+- 둘 다 없으면 매번 구한다.
+ */
+public class TransactionScopedAuditorAware implements AuditorAware<String> {
+
+    private static final String REQUEST_ATTRIBUTE = TransactionScopedAuditorAware.class.getName() + ".auditor";
+
+    private final Supplier<String> resolver;
+
+    public TransactionScopedAuditorAware(Supplier<String> resolver) {
+        this.resolver = resolver;
+    }
+
+    @Override
+    public Optional<String> getCurrentAuditor() {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) {
+            String auditor = (String) request.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            if (auditor == null) {
+                auditor = resolver.get();
+                request.setAttribute(REQUEST_ATTRIBUTE, auditor, RequestAttributes.SCOPE_REQUEST);
+            }
+            return Optional.ofNullable(auditor);
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            String auditor = (String) TransactionSynchronizationManager.getResource(this);
+            if (auditor == null) {
+                auditor = resolver.get();
+                if (auditor != null) bind(auditor);
+            }
+            return Optional.ofNullable(auditor);
+        }
+        return Optional.ofNullable(resolver.get());
+    }
+
+    private void bind(String auditor) {
+        TransactionSynchronizationManager.bindResource(this, auditor);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(TransactionScopedAuditorAware.this);
+            }
+        });
+    }
+}
@@ -4,19 +4,33 @@ import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import study.data_jpa.dto.MemberDto;
+import study.data_jpa.dto.PageResult;
 import study.data_jpa.entity.Member;
+import study.data_jpa.repository.ApproximateCountCache;
 import study.data_jpa.repository.MemberRepository;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
 
     private final MemberRepository memberRepository;
+    private final ApproximateCountCache approximateCountCache;
+
+    // 전체 건수를 어떻게 줄지
+    // NONE   : 안 줌 (기본) -> 쿼리 1번
+    // APPROX : 조건별로 캐시된 건수 (TTL 지나면 뒤에서 다시 셈, 처음에는 null) -> 쿼리 1번
+    // EXACT  : 매번 count 쿼리 -> 쿼리 2번 (예전 Page 방식)
+    public enum TotalMode { NONE, APPROX, EXACT }
 
     @GetMapping("/members/{id}")
     public String findMember(@PathVariable("id") Long id) {
@@ -35,16 +49,41 @@ public class MemberController {
     // /members?page=1&size=3&sort=id,desc&sort=username,desc 이렇게 작성하면 page 가 끝난다!, spring 이 자동으로 객체를 만들어줘서 주입함.
     // default 설정을 바꾸기 위해서는? global 인 경우는 application.yaml 에 넣기
     // local 설정은? PageableDefault 에 넣기 (이것이 더 우선)
+    // Page 로 받으면 요청마다 COUNT(*) 가 같이 나가서, 테이블이 크면 목록 조회보다 count 가 더 오래 걸린다.
+    // 그래서 기본은 Slice (size + 1 개 조회해서 hasNext 만 판단) 이고 전체 건수는 total 파라미터로 골라서 받는다.
+    // /members?page=0&size=5&age=10&total=APPROX
     @GetMapping("/members")
-    public Page<MemberDto> list(@PageableDefault(size = 5, sort = "username") Pageable pageable) {
-        // pageable 인터페이스를 받는 findAll 도 존재한다.
+    public PageResult<MemberDto> list(@PageableDefault(size = 5, sort = "username") Pageable pageable,
+                                      @RequestParam(value = "age", required = false) Integer age,
+                                      @RequestParam(value = "total", defaultValue = "NONE") TotalMode total) {
+        Slice<MemberDto> slice = (age == null
+                ? memberRepository.findSliceBy(pageable)
+                : memberRepository.findSliceByAge(age, pageable))
+                .map(MemberDto::new);
+
+        Long totalElements = switch (total) {
+            case NONE -> null;
+            case APPROX -> age == null
+                    ? approximateCountCache.get("member", memberRepository::count)
+                    : approximateCountCache.get("member:age=" + age, () -> memberRepository.countByAge(age));
+            case EXACT -> age == null ? memberRepository.count() : memberRepository.countByAge(age);
+        };
+        return new PageResult<>(slice.getContent(), slice.getNumber(), slice.getSize(), slice.hasNext(),
+                totalElements, total == TotalMode.APPROX);
+    }
+
+    // 예전 방식 (pageable 인터페이스를 받는 findAll 도 존재한다.) -> 목록 + count 쿼리 2번
+    @GetMapping("/members/page")
+    public Page<MemberDto> page(@PageableDefault(size = 5, sort = "username") Pageable pageable) {
         return memberRepository.findAll(pageable)
                 .map(MemberDto::new);
     }
 
     @PostConstruct
     public void init() {
-        for(int i = 0; i < 100; i++) memberRepository.save(new Member("user" + i, i));
-
+        // save 를 100번 부르면 트랜잭션도 100개 -> saveAll 로 트랜잭션 하나에 넣어야 insert 가 batch 로 묶인다.
+        List<Member> members = new ArrayList<>();
+        for(int i = 0; i < 100; i++) members.add(new Member("user" + i, i));
+        memberRepository.saveAll(members);
     }
 }
@@ -0,0 +1,19 @@
+package study.data_jpa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+// count 없이 다음 페이지 유무(hasNext) 만 알려주는 페이지 응답
+// totalElements 는 요청했을 때만 채운다. (approximate=true 면 캐시된 값이라 조금 늦을 수 있음, 아직 모르면 null)
+@Data
+@AllArgsConstructor
+public class PageResult<T> {
+    private List<T> content;
+    private int page;
+    private int size;
+    private boolean hasNext;
+    private Long totalElements;
+    private boolean approximate;
+}
@@ -0,0 +1,47 @@
+package study.data_jpa.entity;
+
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import org.springframework.data.domain.AuditorAware;
+
+import java.time.LocalDateTime;
+
+/*
+AuditingEntityListener 대신 쓰는 auditing listener
+AuditingEntityListener -> AuditingHandler 는 엔티티마다 auditing 메타데이터를 찾고, 필드를 property accessor 로 쓰고,
+날짜를 ConversionService 로 변환한다. 여기서는 엔티티가 AuditTarget 을 상속하니까 그냥 메소드를 부른다.
+등록자는 TransactionScopedAuditorAware 가 요청 / 트랜잭션마다 한번만 구한다.
+
+hibernate 가 스프링 빈 컨테이너로 만들어서 생성자 주입이 된다. (스프링 부트가 SpringBeanContainer 를 등록)
+엔티티 필드의 @CreatedDate / @CreatedBy 등은 어떤 필드가 auditing 대상인지 표시만 한다. (@EnableJpaAuditing 은 뺐다)
+-> 원래대로 하려면 @EntityListeners 를 AuditingEntityListener 로 바꾸고 DataJpaApplication 에 @EnableJpaAuditing 을 다시 붙인다.
+stampCreated / stampModified 는 패키지 전용이라서 listener 도 entity 패키지에 둔다.
+ */
+public class AuditListener {
+
+    private final AuditorAware<String> auditorAware;
+
+    public AuditListener(AuditorAware<String> auditorAware) {
+        this.auditorAware = auditorAware;
+    }
+
+    @PrePersist
+    public void touchForCreate(Object entity) {
+        if (entity instanceof AuditTarget target) {
+            target.stampCreated(LocalDateTime.now(), auditorAware.getCurrentAuditor().orElse(null));
+        }
+    }
+
+    @PreUpdate
+    public void touchForUpdate(Object entity) {
+        if (entity instanceof AuditTarget target) {
+            target.stampModified(LocalDateTime.now(), auditorAware.getCurrentAuditor().orElse(null));
+        }
+    }
+
+    // persist 를 거치지 않고 jdbc 로 바로 insert 한 Item 에 그때 넣은 등록 시각을 남긴다. (ItemRepositoryImpl.insertAll)
+    // Item 에는 등록자가 없어서 Item 만 받는다.
+    public static void markInserted(Item item, LocalDateTime createdDate) {
+        item.stampCreated(createdDate, null);
+    }
+}
@@ -0,0 +1,15 @@
+package study.data_jpa.entity;
+
+import java.time.LocalDateTime;
+
+/*
+AuditListener 가 reflection 없이 바로 부르는 등록일 / 수정일 (+ 등록자 / 수정자) setter
+entity 패키지 밖에서는 보이지 않는다. -> 다른 코드가 createdDate / createdBy 를 덮어쓸 수 없다.
+(interface 메소드는 public 이 되니까 패키지 전용 추상 클래스로 둔다. 필드가 없어서 매핑에는 영향 없음)
+ */
+abstract class AuditTarget {
+
+    abstract void stampCreated(LocalDateTime now, String auditor);
+
+    abstract void stampModified(LocalDateTime now, String auditor);
+}
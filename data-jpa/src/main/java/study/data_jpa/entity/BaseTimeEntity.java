@@ -6,21 +6,31 @@ import jakarta.persistence.MappedSuperclass;
 import lombok.Getter;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
-import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.time.LocalDateTime;
 
 
 // 보통은 시간이 꼭 필요하고 사람은 안필요한 경우도 많아서 이렇게 사용하기도 함.
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners(AuditListener.class) // AuditingEntityListener 대신 (AuditListener 참고)
 @MappedSuperclass
 @Getter
-public class BaseTimeEntity {
+public class BaseTimeEntity extends AuditTarget {
 
-    @CreatedDate // 이것만 적으면 끝
+    @CreatedDate // 표시용, 값은 AuditListener 가 stampCreated 로 넣는다.
     @Column(updatable = false)
     private LocalDateTime createdDate;
 
-    @LastModifiedDate // 이것만 적으면 끝
+    @LastModifiedDate // 표시용
     private LocalDateTime lastModifiedDate;
+
+    @Override
+    void stampCreated(LocalDateTime now, String auditor) {
+        createdDate = now;
+        lastModifiedDate = now; // AuditingEntityListener 처럼 등록할 때 수정일도 같이
+    }
+
+    @Override
+    void stampModified(LocalDateTime now, String auditor) {
+        lastModifiedDate = now;
+    }
 }
@@ -0,0 +1,46 @@
+package study.data_jpa.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// 나눠서 실행하는 bulk update 의 진행 상태 (ChunkedBulkUpdater)
+// 구간 update 와 같은 트랜잭션에서 nextId 를 옮기기 때문에, 중간에 죽어도 이미 반영된 구간을 다시 실행하지 않는다.
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class BulkJobCheckpoint {
+
+    @Id
+    @Column(name = "job_name")
+    private String jobName;
+
+    @Column(length = 64)
+    private String params; // JPQL + 파라미터의 SHA-256 hex, 같은 job 을 다른 파라미터로 이어서 실행하지 않게
+    private long nextId; // 다음 구간 시작 id (포함)
+    private long maxId; // 시작할 때의 최대 id -> 실행 중에 새로 들어온 row 는 대상이 아니다.
+    private long updatedRows;
+    private boolean completed;
+    private LocalDateTime updatedAt;
+
+    public BulkJobCheckpoint(String jobName, String params, long nextId, long maxId) {
+        this.jobName = jobName;
+        this.params = params;
+        this.nextId = nextId;
+        this.maxId = maxId;
+        this.completed = nextId > maxId;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public void advance(long nextId, int rows) {
+        this.nextId = nextId;
+        this.updatedRows += rows;
+        this.completed = nextId > maxId;
+        this.updatedAt = LocalDateTime.now();
+    }
+}
@@ -7,18 +7,17 @@ import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.domain.Persistable;
-import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.time.LocalDateTime;
 
 @Entity
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners(AuditListener.class)
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
-public class Item implements Persistable<String> {
+public class Item extends AuditTarget implements Persistable<String> {
     @Id
     private String id;
 
-    @CreatedDate
+    @CreatedDate // 표시용, 값은 AuditListener 가 stampCreated 로 넣는다. (insertAll 은 AuditListener.markInserted)
     private LocalDateTime createdDate;
 
     public Item(String id){this.id = id;}
@@ -28,4 +27,10 @@ public class Item implements Persistable<String> {
 
     @Override
     public boolean isNew() {return createdDate == null;}
+
+    @Override
+    void stampCreated(LocalDateTime now, String auditor) {createdDate = now;}
+
+    @Override
+    void stampModified(LocalDateTime now, String auditor) {}
 }
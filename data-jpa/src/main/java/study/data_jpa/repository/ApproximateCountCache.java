@@ -0,0 +1,86 @@
+package study.data_jpa.repository;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.LongSupplier;
+
+/*
+조건(filter) 별 전체 건수 캐시 -> 페이지 요청마다 COUNT(*) 를 날리지 않기 위해서
+- 캐시된 값이 있으면 그대로 돌려준다. TTL 이 지났으면 일단 예전 값을 돌려주고 뒤에서 다시 센다.
+- 처음이라 값이 없으면 null 을 돌려주고 뒤에서 센다. (요청 스레드는 count 를 기다리지 않는다)
+- 같은 key 를 동시에 다시 세지 않는다.
+그래서 돌려주는 값은 최대 TTL + count 시간 만큼 늦은 근사값이다.
+ */
+@Slf4j
+@Component
+public class ApproximateCountCache {
+
+    private volatile long ttlMs;
+    private final int maxEntries;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    public ApproximateCountCache(@Value("${data-jpa.approximate-count.ttl-ms:30000}") long ttlMs,
+                                 @Value("${data-jpa.approximate-count.max-entries:1000}") int maxEntries) {
+        this.ttlMs = ttlMs;
+        this.maxEntries = maxEntries;
+    }
+
+    public Long get(String key, LongSupplier counter) {
+        Entry entry = entries.get(key);
+        if (entry == null || entry.expiresAt() <= System.currentTimeMillis()) {
+            refresh(key, counter);
+        }
+        return entry == null ? null : entry.count();
+    }
+
+    private void refresh(String key, LongSupplier counter) {
+        if (!refreshing.add(key)) return; // 이미 세는 중
+        executor.execute(() -> {
+            try {
+                long count = counter.getAsLong();
+                if (entries.size() >= maxEntries && !entries.containsKey(key)) {
+                    entries.clear(); // 조건 조합이 너무 많아지면 그냥 비운다.
+                }
+                entries.put(key, new Entry(count, System.currentTimeMillis() + ttlMs));
+            } catch (RuntimeException e) {
+                log.warn("approximate count failed. key={}", key, e);
+            } finally {
+                refreshing.remove(key);
+            }
+        });
+    }
+
+    public long getTtlMs() {
+        return ttlMs;
+    }
+
+    // 실행 중에 바꿀 수 있다. (이미 캐시된 값은 넣을 때의 TTL 로 만료)
+    public void setTtlMs(long ttlMs) {
+        if (ttlMs < 0) {
+            throw new IllegalArgumentException("ttlMs 는 0 이상이어야 합니다. " + ttlMs);
+        }
+        this.ttlMs = ttlMs;
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private record Entry(long count, long expiresAt) {
+    }
+}
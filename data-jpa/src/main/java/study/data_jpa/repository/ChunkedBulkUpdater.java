@@ -0,0 +1,202 @@
+package study.data_jpa.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.metamodel.EntityType;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.data_jpa.entity.BulkJobCheckpoint;
+import study.data_jpa.entity.Member;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/*
+bulk update 를 pk 구간으로 나눠서 구간마다 짧은 트랜잭션으로 실행
+UPDATE ... WHERE age >= :age 를 한번에 날리면 대상 row 전체에 락을 잡은 채로 오래 걸리고 undo 도 한번에 쌓인다.
+
+- update JPQL 에는 :fromId (포함), :toId (미포함) 조건이 들어 있어야 한다.
+- 진행 상태는 BulkJobCheckpoint 에 jobName 으로 남기고, 구간 update 와 같은 트랜잭션에서 옮긴다.
+  -> 중간에 죽으면 같은 jobName 으로 다시 실행했을 때 남은 구간부터 이어서 하고, age + 1 처럼 두번 하면 안되는 update 도 한번만 반영된다.
+  -> 구간마다 checkpoint row 를 잠그니까 같은 job 을 동시에 실행해도 구간이 겹치지 않는다.
+- 대상 범위(maxId) 는 처음 시작할 때 정해진다. 실행 중에 새로 insert 된 row 는 대상이 아니다.
+- @Modifying(clearAutomatically = true) 처럼 영속성 컨텍스트를 통째로 비우지 않고, 그 구간에 해당하는 엔티티만 detach 한다.
+
+이미 트랜잭션 안에서 호출하면 (테스트 등) 그 트랜잭션 안에서 구간을 나눠 실행한다. 락은 결국 커밋할 때까지 잡혀 있다.
+ */
+@Slf4j
+@Component
+public class ChunkedBulkUpdater {
+
+    // 파라미터 이름 전체가 같아야 한다. (:fromIdx 같은 다른 파라미터는 안됨)
+    private static final Pattern FROM_ID = Pattern.compile(":fromId\\b");
+    private static final Pattern TO_ID = Pattern.compile(":toId\\b");
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final long progressIntervalMs;
+
+    public ChunkedBulkUpdater(TransactionTemplate transactionTemplate,
+                              @Value("${data-jpa.bulk-update.chunk-size:1000}") int chunkSize,
+                              @Value("${data-jpa.bulk-update.progress-interval-ms:5000}") long progressIntervalMs) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("data-jpa.bulk-update.chunk-size 는 1 이상이어야 합니다. " + chunkSize);
+        }
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = chunkSize;
+        this.progressIntervalMs = progressIntervalMs;
+    }
+
+    public BulkUpdateResult execute(String jobName, Class<?> entityClass, String jpql, Map<String, ?> params) {
+        return execute(jobName, entityClass, jpql, params, chunkSize);
+    }
+
+    public BulkUpdateResult execute(String jobName, Class<?> entityClass, String jpql, Map<String, ?> params, int chunkSize) {
+        if (chunkSize < 1) {
+            // 0 이면 구간이 비어서 checkpoint 가 앞으로 가지 않는다. (끝나지 않음)
+            throw new IllegalArgumentException("chunkSize 는 1 이상이어야 합니다. " + chunkSize);
+        }
+        if (!FROM_ID.matcher(jpql).find() || !TO_ID.matcher(jpql).find()) {
+            throw new IllegalArgumentException("bulk update 에는 :fromId, :toId 구간 조건이 있어야 합니다. " + jpql);
+        }
+        String fingerprint = fingerprint(jpql, params);
+        BulkJobCheckpoint start = inTransaction(() -> startOrResume(jobName, entityClass, fingerprint));
+        long resumedFrom = start.getNextId();
+        long rowsBefore = start.getUpdatedRows(); // 트랜잭션 안에서 호출하면 start 와 checkpoint 가 같은 (관리되는) 객체라서 미리 꺼내둔다.
+
+        long begin = System.nanoTime();
+        long lastReport = begin;
+        long rows = 0;
+        int slices = 0;
+        BulkJobCheckpoint checkpoint = start;
+        while (!checkpoint.isCompleted()) {
+            checkpoint = inTransaction(() -> slice(jobName, entityClass, jpql, params, chunkSize));
+            rows = checkpoint.getUpdatedRows() - rowsBefore;
+            slices++;
+
+            long now = System.nanoTime();
+            if (now - lastReport >= progressIntervalMs * 1_000_000) {
+                lastReport = now;
+                log.info("bulk update progress. job={}, nextId={}/{}, rows={}, rows/s={}",
+                        jobName, checkpoint.getNextId(), checkpoint.getMaxId(), checkpoint.getUpdatedRows(),
+                        rowsPerSecond(rows, now - begin));
+            }
+        }
+
+        BulkUpdateResult result = new BulkUpdateResult(jobName, resumedFrom, slices, rows, checkpoint.getUpdatedRows(),
+                rowsPerSecond(rows, System.nanoTime() - begin));
+        log.info("bulk update done. {}", result);
+        return result;
+    }
+
+    // MemberRepository, MemberJpaRepository 가 같이 쓴다. (쿼리와 파라미터가 같아야 같은 jobName 으로 어느 쪽에서든 이어서 실행된다)
+    public BulkUpdateResult bulkAgePlusChunked(String jobName, int age) {
+        return execute(jobName, Member.class,
+                "UPDATE Member m SET m.age = m.age + 1 WHERE m.age >= :age AND m.id >= :fromId AND m.id < :toId",
+                Map.of("age", age));
+    }
+
+    private BulkJobCheckpoint startOrResume(String jobName, Class<?> entityClass, String fingerprint) {
+        BulkJobCheckpoint checkpoint = em.find(BulkJobCheckpoint.class, jobName, LockModeType.PESSIMISTIC_WRITE);
+        if (checkpoint != null) {
+            if (!checkpoint.getParams().equals(fingerprint)) {
+                throw new IllegalStateException("같은 이름의 job 이 다른 파라미터로 실행된 적이 있습니다. job=" + jobName);
+            }
+            if (!checkpoint.isCompleted()) {
+                log.info("bulk update resume. job={}, nextId={}/{}", jobName, checkpoint.getNextId(), checkpoint.getMaxId());
+            }
+            return checkpoint;
+        }
+
+        EntityType<?> entity = em.getMetamodel().entity(entityClass);
+        String id = entity.getId(Long.class).getName();
+        Tuple range = em.createQuery("SELECT MIN(e." + id + "), MAX(e." + id + ") FROM " + entity.getName() + " e", Tuple.class)
+                .getSingleResult();
+        Long minId = range.get(0, Long.class);
+        Long maxId = range.get(1, Long.class);
+        checkpoint = minId == null
+                ? new BulkJobCheckpoint(jobName, fingerprint, 1, 0) // 대상이 없음
+                : new BulkJobCheckpoint(jobName, fingerprint, minId, maxId);
+        em.persist(checkpoint);
+        return checkpoint;
+    }
+
+    // 구간 하나 실행 -> update 와 checkpoint 이동이 같은 트랜잭션
+    private BulkJobCheckpoint slice(String jobName, Class<?> entityClass, String jpql, Map<String, ?> params, int chunkSize) {
+        BulkJobCheckpoint checkpoint = em.find(BulkJobCheckpoint.class, jobName, LockModeType.PESSIMISTIC_WRITE);
+        if (checkpoint.isCompleted()) {
+            return checkpoint; // 동시에 실행한 다른 쪽이 끝냄
+        }
+        long fromId = checkpoint.getNextId();
+        long toId = Math.min(fromId + chunkSize, checkpoint.getMaxId() + 1);
+
+        em.flush(); // 아직 안 나간 변경은 update 전에 반영 (아래에서 detach 하면 사라지니까)
+        Query query = em.createQuery(jpql)
+                .setParameter("fromId", fromId)
+                .setParameter("toId", toId);
+        params.forEach(query::setParameter);
+        int rows = query.executeUpdate();
+        detach(entityClass, fromId, toId);
+
+        checkpoint.advance(toId, rows);
+        return checkpoint;
+    }
+
+    // 영속성 컨텍스트에 있는 엔티티 중 이번 구간에 해당하는 것만 detach -> 다음에 조회하면 DB 에서 새 값을 읽는다.
+    private void detach(Class<?> entityClass, long fromId, long toId) {
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        List<Object> stale = new ArrayList<>();
+        for (Map.Entry<Object, EntityEntry> entry : session.getPersistenceContextInternal().reentrantSafeEntityEntries()) {
+            if (entityClass.isInstance(entry.getKey()) && entry.getValue().getId() instanceof Long id
+                    && id >= fromId && id < toId) {
+                stale.add(entry.getKey());
+            }
+        }
+        stale.forEach(em::detach);
+    }
+
+    // JPQL + 파라미터는 길이 제한이 없으니까 SHA-256 hex (64자) 로 줄여서 checkpoint 에 남긴다.
+    private static String fingerprint(String jpql, Map<String, ?> params) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest((jpql + " " + new TreeMap<>(params)).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // 모든 JVM 에 있는 알고리즘
+        }
+    }
+
+    private <T> T inTransaction(Supplier<T> work) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return work.get();
+        }
+        return transactionTemplate.execute(status -> work.get());
+    }
+
+    private static long rowsPerSecond(long rows, long nanos) {
+        return nanos == 0 ? 0 : rows * 1_000_000_000L / nanos;
+    }
+
+    // resumedFromId: 이번 실행이 시작한 id, rows: 이번 실행에서 바꾼 row 수, totalRows: job 전체 (이전 실행 포함)
+    public record BulkUpdateResult(String jobName, long resumedFromId, int slices, long rows, long totalRows, long rowsPerSecond) {
+    }
+}
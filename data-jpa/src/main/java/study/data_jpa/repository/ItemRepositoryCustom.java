@@ -0,0 +1,12 @@
+package study.data_jpa.repository;
+
+import study.data_jpa.entity.Item;
+
+import java.util.Collection;
+
+public interface ItemRepositoryCustom {
+
+    // saveAll 과 결과는 같은데, 새 Item 은 영속성 컨텍스트 / auditing listener 를 거치지 않고 multi-row insert 로 묶어서 넣는다.
+    // 반환값: insert 한 row 수
+    int insertAll(Collection<Item> items);
+}
@@ -0,0 +1,132 @@
+package study.data_jpa.repository;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.metamodel.mapping.SelectableConsumer;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import study.data_jpa.entity.AuditListener;
+import study.data_jpa.entity.Item;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/*
+Item 대량 적재 경로
+Persistable 덕분에 save 가 select 는 안 하지만, 그래도 한건마다 persist -> auditing listener -> 영속성 컨텍스트 등록 -> insert 1 row 를 거친다.
+여기서는
+- @CreatedDate 는 호출마다 한번 구한 시각으로 한꺼번에 채운다. (Item 에는 다른 auditing 필드가 없다)
+- insert into item (...) values (?, ?), (?, ?), ... 로 rowsPerStatement 개씩 묶고, 그 statement 들을 jdbc batch 로 보낸다.
+  테이블 / 컬럼 목록은 hibernate 매핑에서 꺼낸다. COLUMN_VALUES 에 없는 컬럼이 Item 에 생기면 빠뜨리지 않도록 시작할 때 실패한다.
+- 영속성 컨텍스트에 올리지 않는다. 넣은 뒤 같은 트랜잭션에서 find 하면 DB 에서 다시 읽는다.
+이미 저장된 Item (isNew == false) 은 save 와 같이 merge
+ */
+public class ItemRepositoryImpl implements ItemRepositoryCustom {
+
+    // 컬럼 이름 -> 그 컬럼에 넣을 값 (Item, 등록 시각)
+    private static final Map<String, BiFunction<Item, Timestamp, Object>> COLUMN_VALUES = Map.of(
+            "id", (item, createdDate) -> item.getId(),
+            "created_date", (item, createdDate) -> createdDate);
+
+    private final EntityManager em;
+    private final JdbcTemplate jdbcTemplate;
+    private final int rowsPerStatement;
+    private final int batchSize;
+    private final String insertPrefix; // insert into item (id, created_date) values
+    private final String rowPlaceholder; // (?, ?)
+    private final List<BiFunction<Item, Timestamp, Object>> columnValues = new ArrayList<>(); // insertPrefix 의 컬럼 순서
+
+    public ItemRepositoryImpl(EntityManager em, JdbcTemplate jdbcTemplate,
+                              @Value("${data-jpa.item-insert.rows-per-statement:100}") int rowsPerStatement,
+                              @Value("${data-jpa.item-insert.batch-size:50}") int batchSize) {
+        if (rowsPerStatement < 1) {
+            throw new IllegalArgumentException("data-jpa.item-insert.rows-per-statement 는 1 이상이어야 합니다. " + rowsPerStatement);
+        }
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("data-jpa.item-insert.batch-size 는 1 이상이어야 합니다. " + batchSize);
+        }
+        this.em = em;
+        this.jdbcTemplate = jdbcTemplate;
+        this.rowsPerStatement = rowsPerStatement;
+        this.batchSize = batchSize;
+
+        EntityPersister persister = em.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                .getMappingMetamodel().getEntityDescriptor(Item.class);
+        List<String> tables = new ArrayList<>();
+        List<String> columns = new ArrayList<>();
+        SelectableConsumer addColumn = (index, selectable) -> {
+            if (!tables.contains(selectable.getContainingTableExpression())) tables.add(selectable.getContainingTableExpression());
+            columns.add(selectable.getSelectionExpression());
+        };
+        persister.getIdentifierMapping().forEachSelectable(addColumn); // 엔티티의 forEachSelectable 에는 id 가 빠져 있다.
+        persister.forEachSelectable(addColumn);
+        if (tables.size() != 1 || !COLUMN_VALUES.keySet().containsAll(columns)) {
+            throw new IllegalStateException("insertAll 이 모르는 Item 매핑입니다. COLUMN_VALUES 도 같이 고쳐야 합니다. tables="
+                    + tables + " columns=" + columns);
+        }
+        columns.forEach(column -> columnValues.add(COLUMN_VALUES.get(column)));
+        this.insertPrefix = "insert into " + tables.get(0) + " (" + String.join(", ", columns) + ") values ";
+        this.rowPlaceholder = "(" + String.join(", ", columns.stream().map(column -> "?").toList()) + ")";
+    }
+
+    @Override
+    @Transactional
+    public int insertAll(Collection<Item> items) {
+        List<Item> newItems = new ArrayList<>(items.size());
+        for (Item item : items) {
+            if (item.isNew()) newItems.add(item);
+            else em.merge(item);
+        }
+        if (newItems.isEmpty()) return 0;
+
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp createdDate = Timestamp.valueOf(now);
+        int size = newItems.size();
+        List<Integer> starts = new ArrayList<>(size / rowsPerStatement + 1); // statement 마다 첫 row 의 index
+        for (int from = 0; from + rowsPerStatement <= size; from += rowsPerStatement) {
+            starts.add(from);
+        }
+        insert(newItems, starts, rowsPerStatement, createdDate);
+        int rest = size % rowsPerStatement;
+        if (rest > 0) {
+            insert(newItems, List.of(size - rest), rest, createdDate); // 남은 row 는 작은 statement 하나로
+        }
+
+        newItems.forEach(item -> AuditListener.markInserted(item, now)); // 이제 isNew == false
+        return size;
+    }
+
+    // statement 하나에 rows 개씩, batchSize 개 statement 마다 executeBatch
+    private void insert(List<Item> items, List<Integer> starts, int rows, Timestamp createdDate) {
+        if (starts.isEmpty()) return;
+        jdbcTemplate.batchUpdate(insertSql(rows), starts, batchSize, (ps, from) -> {
+            for (int i = 0; i < rows; i++) {
+                setRow(ps, i * columnValues.size(), items.get(from + i), createdDate);
+            }
+        });
+    }
+
+    private void setRow(PreparedStatement ps, int offset, Item item, Timestamp createdDate) throws SQLException {
+        for (int c = 0; c < columnValues.size(); c++) {
+            ps.setObject(offset + c + 1, columnValues.get(c).apply(item, createdDate));
+        }
+    }
+
+    private String insertSql(int rows) {
+        StringBuilder sql = new StringBuilder(insertPrefix);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) sql.append(", ");
+            sql.append(rowPlaceholder);
+        }
+        return sql.toString();
+    }
+}
@@ -0,0 +1,15 @@
+package study.data_jpa.repository;
+
+// 리포지토리 메소드에 붙이는 락 타임아웃 힌트 값 (@QueryHints 에는 상수만 들어가서 여기 모아둔다.)
+// 단위는 ms, 0 과 -2 는 hibernate LockOptions.NO_WAIT / SKIP_LOCKED
+public final class LockHints {
+
+    public static final String TIMEOUT = "jakarta.persistence.lock.timeout";
+
+    public static final String DEFAULT_TIMEOUT_MS = "3000"; // 락을 기다리는 최대 시간 -> 넘으면 PessimisticLockingFailureException
+    public static final String NOWAIT = "0"; // 이미 잠겨 있으면 기다리지 않고 바로 실패
+    public static final String SKIP_LOCKED = "-2"; // 잠긴 row 는 건너뛰고 나머지만 (작업 큐처럼 나눠 가져갈 때)
+
+    private LockHints() {
+    }
+}
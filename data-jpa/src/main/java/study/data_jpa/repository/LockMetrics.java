@@ -0,0 +1,70 @@
+package study.data_jpa.repository;
+
+import jakarta.persistence.LockTimeoutException;
+import jakarta.persistence.PessimisticLockException;
+import lombok.Getter;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/*
+락을 잡는 쿼리가 얼마나 기다렸는지 이름별로 모아두는 통계
+잠그는 쿼리 실행 시간 = 락 대기 시간 + 조회 시간 이라서, 조회가 가벼운 (pk / 인덱스) 잠금 쿼리에 쓴다.
+타임아웃 / NOWAIT 실패는 failures 로 세고 예외는 그대로 던진다.
+ */
+@Component
+public class LockMetrics {
+
+    private final ConcurrentHashMap<String, LockStats> stats = new ConcurrentHashMap<>();
+
+    public <T> T measure(String name, Supplier<T> lockingQuery) {
+        LockStats lockStats = stats.computeIfAbsent(name, n -> new LockStats());
+        long begin = System.nanoTime();
+        try {
+            return lockingQuery.get();
+        } catch (PessimisticLockingFailureException | PessimisticLockException | LockTimeoutException e) {
+            lockStats.failures.increment();
+            throw e;
+        } finally {
+            lockStats.record(System.nanoTime() - begin);
+        }
+    }
+
+    // 이름 순
+    public Map<String, LockStats> getStats() {
+        return new TreeMap<>(stats);
+    }
+
+    public void reset() {
+        stats.clear();
+    }
+
+    @Getter
+    public static class LockStats {
+        private final LongAdder count = new LongAdder(); // 잠금 시도 횟수
+        private final LongAdder failures = new LongAdder(); // 타임아웃 / NOWAIT 으로 실패한 횟수
+        private final LongAdder totalWaitNanos = new LongAdder();
+        private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+
+        private void record(long nanos) {
+            count.increment();
+            totalWaitNanos.add(nanos);
+            maxWaitNanos.accumulate(nanos);
+        }
+
+        public double getAverageWaitMs() {
+            long n = count.sum();
+            return n == 0 ? 0 : totalWaitNanos.sum() / 1_000_000.0 / n;
+        }
+
+        public double getMaxWaitMs() {
+            return maxWaitNanos.get() / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package study.data_jpa.repository;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.UndeclaredThrowableException;
+
+/*
+@Lock 이 붙은 리포지토리 메소드 (findLockByUsername, findNowaitById ...) 를 전부 LockMetrics 로 잰다.
+리포지토리 프록시를 만들기 전에 advice 를 하나 더 끼워넣는다. 이름은 "리포지토리.메소드" (MemberRepository.findNowaitById)
+예외 변환 advice 보다 안쪽이라서 jakarta PessimisticLockException / LockTimeoutException 이 그대로 들어온다. (LockMetrics 가 둘 다 센다)
+ */
+@Component
+public class LockMetricsRepositoryPostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<LockMetrics> lockMetrics; // BeanPostProcessor 는 먼저 만들어지니까 쓸 때 꺼낸다.
+
+    public LockMetricsRepositoryPostProcessor(ObjectProvider<LockMetrics> lockMetrics) {
+        this.lockMetrics = lockMetrics;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+            factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                    (proxyFactory, repositoryInformation) -> proxyFactory.addAdvice(
+                            measureLocking(repositoryInformation.getRepositoryInterface().getSimpleName()))));
+        }
+        return bean;
+    }
+
+    private MethodInterceptor measureLocking(String repositoryName) {
+        return invocation -> {
+            if (!AnnotatedElementUtils.hasAnnotation(invocation.getMethod(), Lock.class)) {
+                return invocation.proceed();
+            }
+            return lockMetrics.getObject().measure(repositoryName + "." + invocation.getMethod().getName(), () -> {
+                try {
+                    return invocation.proceed();
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new UndeclaredThrowableException(e); // 리포지토리 메소드는 checked 예외를 선언하지 않는다.
+                }
+            });
+        };
+    }
+}
@@ -2,17 +2,23 @@ package study.data_jpa.repository;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
 import study.data_jpa.entity.Member;
+import study.data_jpa.repository.ChunkedBulkUpdater.BulkUpdateResult;
+
 import java.util.List;
 import java.util.Optional;
 
 @Repository
+@RequiredArgsConstructor
 public class MemberJpaRepository {
 
     @PersistenceContext // spring 이 알아서 em을 물어오는 어노테이션
     private EntityManager em;
 
+    private final ChunkedBulkUpdater chunkedBulkUpdater;
+
     public Member save(Member member) {
         em.persist(member);
         return member;
@@ -72,4 +78,10 @@ public class MemberJpaRepository {
                 .executeUpdate();
      }
 
+     // 위 update 를 pk 구간으로 나눠서 구간마다 짧은 트랜잭션으로 (ChunkedBulkUpdater)
+     // 영속성 컨텍스트는 통째로 비우지 않고 바뀐 구간의 Member 만 detach 된다.
+     public BulkUpdateResult bulkAgePlusChunked(String jobName, int age) {
+        return chunkedBulkUpdater.bulkAgePlusChunked(jobName, age);
+     }
+
 }
@@ -2,8 +2,10 @@ package study.data_jpa.repository;
 
 import jakarta.persistence.LockModeType;
 import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
 import study.data_jpa.dto.MemberDto;
@@ -55,8 +57,17 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
             countQuery = "SELECT COUNT(m.username) FROM Member m")
     Page<Member> findByAge(int age, Pageable pageable);
 
+    // Slice 로 받으면 size + 1 개를 조회해서 다음 페이지가 있는지만 확인 -> count 쿼리가 안 나간다.
+    // 전체 건수가 필요하면 countByAge 를 ApproximateCountCache 로 (MemberController)
+    Slice<Member> findSliceBy(Pageable pageable);
+
+    Slice<Member> findSliceByAge(int age, Pageable pageable);
+
+    long countByAge(int age);
+
     // 이 어노테이션이 있어야 executeQuery 함수를 실행한다.
     // clearAutometically 를 쓰면 자동으로 영속성 컨텍스트를 날려버림
+    // 대상이 많으면 한 트랜잭션에서 오래 락을 잡으니까 bulkAgePlusChunked (MemberRepositoryCustom) 를 쓴다.
     @Modifying(clearAutomatically = true)
     @Query("UPDATE Member m SET m.age = m.age + 1 WHERE m.age >= :age")
     int bulkAgePlus(@Param("age") int age);
@@ -81,6 +92,23 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     Member findReadOnlyByUsername(String username);
 
     // jpa 에서 제공하는 locking method
+    // 타임아웃이 없으면 다른 트랜잭션이 잡고 있는 동안 요청 스레드가 계속 묶여 있으니까 메소드마다 기다리는 시간을 정해둔다.
     @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = LockHints.TIMEOUT, value = LockHints.DEFAULT_TIMEOUT_MS))
     List<Member> findLockByUsername(String username);
+
+    // 잠겨 있으면 기다리지 않고 바로 실패 (FOR UPDATE NOWAIT)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = LockHints.TIMEOUT, value = LockHints.NOWAIT))
+    Optional<Member> findNowaitById(Long id);
+
+    // 작업 큐처럼 여러 worker 가 나눠 가져가기 (FOR UPDATE SKIP LOCKED) -> 다른 worker 가 잡은 row 는 건너뛴다. (MemberWorkQueue)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = LockHints.TIMEOUT, value = LockHints.SKIP_LOCKED))
+    List<Member> findSkipLockedByAgeOrderById(int age, Limit limit);
+
+    // 비교용: 같은 조건을 그냥 기다리면서 잠그기 -> 앞 worker 가 커밋할 때까지 줄을 선다.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = LockHints.TIMEOUT, value = LockHints.DEFAULT_TIMEOUT_MS))
+    List<Member> findLockByAgeOrderById(int age, Limit limit);
 }
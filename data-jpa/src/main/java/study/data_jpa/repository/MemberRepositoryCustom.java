@@ -1,6 +1,7 @@
 package study.data_jpa.repository;
 
 import study.data_jpa.entity.Member;
+import study.data_jpa.repository.ChunkedBulkUpdater.BulkUpdateResult;
 
 import java.util.List;
 
@@ -14,4 +15,7 @@ import java.util.List;
  */
 public interface MemberRepositoryCustom {
     List<Member> findMemberCustom();
+
+    // bulkAgePlus 를 pk 구간으로 나눠서 실행 (구간마다 트랜잭션, 같은 jobName 으로 다시 부르면 이어서)
+    BulkUpdateResult bulkAgePlusChunked(String jobName, int age);
 }
@@ -3,15 +3,23 @@ package study.data_jpa.repository;
 import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import study.data_jpa.entity.Member;
+import study.data_jpa.repository.ChunkedBulkUpdater.BulkUpdateResult;
+
 import java.util.List;
 
 @RequiredArgsConstructor
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
     private final EntityManager em;
+    private final ChunkedBulkUpdater chunkedBulkUpdater;
 
     @Override
     public List<Member> findMemberCustom() {
         return em.createQuery("select m from Member m", Member.class).getResultList();
     }
+
+    @Override
+    public BulkUpdateResult bulkAgePlusChunked(String jobName, int age) {
+        return chunkedBulkUpdater.bulkAgePlusChunked(jobName, age);
+    }
 }
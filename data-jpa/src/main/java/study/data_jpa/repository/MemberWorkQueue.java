@@ -0,0 +1,89 @@
+package study.data_jpa.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.data_jpa.entity.Member;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+/*
+age 가 같은 회원들을 작업 대기열(backlog) 로 보고 여러 worker 스레드가 나눠서 처리하는 예제
+worker 는 batchSize 개씩 잠가서 가져오고(claim), 처리 후 커밋한다. 처리(work) 는 회원을 대기열 조건(age) 에서 빼야 한다.
+
+- SKIP_LOCKED : 다른 worker 가 잡은 row 는 건너뛰고 그 다음 row 를 가져간다. -> worker 끼리 기다리지 않는다.
+- BLOCKING    : 같은 앞쪽 row 를 서로 잡으려고 줄을 선다. 락 타임아웃(LockHints.DEFAULT_TIMEOUT_MS) 이 나면 잠깐 쉬고 다시 시도
+  연속으로 maxLockAttempts 번 실패하면 (누가 row 를 계속 잡고 있으면) 포기하고 예외를 던진다.
+ */
+@Component
+public class MemberWorkQueue {
+
+    public enum ClaimMode { SKIP_LOCKED, BLOCKING }
+
+    private final MemberRepository memberRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxLockAttempts;
+    private final long retryBackoffMs;
+
+    public MemberWorkQueue(MemberRepository memberRepository, TransactionTemplate transactionTemplate,
+                           @Value("${data-jpa.work-queue.max-lock-attempts:5}") int maxLockAttempts,
+                           @Value("${data-jpa.work-queue.retry-backoff-ms:100}") long retryBackoffMs) {
+        if (maxLockAttempts < 1) {
+            throw new IllegalArgumentException("data-jpa.work-queue.max-lock-attempts 는 1 이상이어야 합니다. " + maxLockAttempts);
+        }
+        if (retryBackoffMs < 0) {
+            throw new IllegalArgumentException("data-jpa.work-queue.retry-backoff-ms 는 0 이상이어야 합니다. " + retryBackoffMs);
+        }
+        this.memberRepository = memberRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.maxLockAttempts = maxLockAttempts;
+        this.retryBackoffMs = retryBackoffMs;
+    }
+
+    // 대기열이 빌 때까지 처리하고 이 worker 가 처리한 회원 수를 돌려준다.
+    public int drain(int age, int batchSize, ClaimMode mode, Consumer<Member> work) {
+        int processed = 0;
+        int failedAttempts = 0; // 연속으로 락 타임아웃이 난 횟수
+        while (true) {
+            Integer claimed;
+            try {
+                claimed = transactionTemplate.execute(status -> {
+                    List<Member> members = claim(age, batchSize, mode);
+                    members.forEach(work);
+                    return members.size();
+                });
+            } catch (PessimisticLockingFailureException e) {
+                // 락 타임아웃 -> 롤백됐으니 쉬었다가 다시 가져온다. (LockMetricsRepositoryPostProcessor 가 failures 로 남김)
+                if (++failedAttempts >= maxLockAttempts) throw e;
+                backoff(failedAttempts, e);
+                continue;
+            }
+            failedAttempts = 0;
+            if (claimed == null || claimed == 0) return processed;
+            processed += claimed;
+        }
+    }
+
+    // 락 대기 시간은 @Lock 메소드라서 LockMetricsRepositoryPostProcessor 가 "MemberRepository.메소드" 이름으로 잰다.
+    public List<Member> claim(int age, int batchSize, ClaimMode mode) {
+        return switch (mode) {
+            case SKIP_LOCKED -> memberRepository.findSkipLockedByAgeOrderById(age, Limit.of(batchSize));
+            case BLOCKING -> memberRepository.findLockByAgeOrderById(age, Limit.of(batchSize));
+        };
+    }
+
+    // retryBackoffMs * 2^(n-1) 의 절반 ~ 전부 만큼 쉰다. (worker 들이 같은 순간에 다시 몰리지 않도록 흩뜨린다.)
+    private void backoff(int failedAttempts, PessimisticLockingFailureException cause) {
+        long backoffMs = retryBackoffMs << Math.min(failedAttempts - 1, 10);
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(backoffMs / 2, backoffMs + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw cause;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package study.data_jpa.audit;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.auditing.AuditingHandler;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.data.jpa.mapping.JpaMetamodelMappingContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import study.data_jpa.entity.AuditListener;
+import study.data_jpa.entity.Member;
+import study.data_jpa.repository.MemberRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.*;
+
+/*
+AuditListener + TransactionScopedAuditorAware 테스트, 엔티티 1건당 auditing 비용 벤치마크
+before : AuditingEntityListener 가 부르는 AuditingHandler + 매번 UUID 를 만드는 auditorAware (원래 설정)
+after  : AuditListener + 트랜잭션마다 한번 구하는 auditorAware
+트랜잭션이 나눠져야 하니까 테스트 트랜잭션 없이 실행하고 끝나면 지운다.
+벤치마크(auditingBenchmark) 는 ./gradlew benchmark 에서만 돌고, 수치는 출력만 한다.
+ */
+@SpringBootTest
+class AuditListenerTest {
+
+    static final int MEMBER_COUNT = 200_000;
+    static final int ROUNDS = 5;
+    static final int INSERT_COUNT = 20_000;
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired AuditorAware<String> auditorAware;
+    @Autowired JpaMetamodelMappingContext mappingContext;
+    @Autowired TransactionTemplate transactionTemplate;
+    @PersistenceContext EntityManager em;
+
+    final String prefix = "audit-" + UUID.randomUUID() + "-";
+
+    @BeforeEach
+    void setUp() {
+        // 스프링 테스트가 테스트 메소드마다 mock 요청을 걸어둔다. -> 트랜잭션 단위 캐시를 보려고 뗀다.
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        RequestContextHolder.resetRequestAttributes();
+        transactionTemplate.executeWithoutResult(status -> em.createQuery("DELETE FROM Member m WHERE m.username LIKE :prefix")
+                .setParameter("prefix", prefix + "%")
+                .executeUpdate());
+    }
+
+    @Test
+    public void sameAuditorInTransaction() {
+        // when
+        List<Member> first = transactionTemplate.execute(status ->
+                memberRepository.saveAll(List.of(new Member(prefix + "1"), new Member(prefix + "2"))));
+        Member second = memberRepository.save(new Member(prefix + "3")); // 다른 트랜잭션
+
+        // then
+        Member member = first.get(0);
+        assertThat(member.getCreatedBy()).isNotNull().isEqualTo(member.getLastModifiedBy());
+        assertThat(first.get(1).getCreatedBy()).isEqualTo(member.getCreatedBy());
+        assertThat(second.getCreatedBy()).isNotNull().isNotEqualTo(member.getCreatedBy());
+        assertThat(member.getCreatedDate()).isNotNull().isEqualTo(member.getLastModifiedDate());
+    }
+
+    @Test
+    public void sameAuditorInRequest() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+
+        Member first = memberRepository.save(new Member(prefix + "1"));
+        Member second = memberRepository.save(new Member(prefix + "2")); // 다른 트랜잭션, 같은 요청
+
+        assertThat(second.getCreatedBy()).isNotNull().isEqualTo(first.getCreatedBy());
+    }
+
+    @Test
+    public void updateTouchesModifiedOnly() throws Exception {
+        // given
+        Long id = memberRepository.save(new Member(prefix + "1")).getId();
+        Member saved = memberRepository.findById(id).get(); // DB 에 저장된 정밀도(마이크로초) 로 비교
+        Thread.sleep(10);
+
+        // when
+        transactionTemplate.executeWithoutResult(status ->
+                memberRepository.findById(id).get().setUsername(prefix + "2"));
+
+        // then
+        Member updated = memberRepository.findById(id).get();
+        assertThat(updated.getCreatedDate()).isEqualTo(saved.getCreatedDate());
+        assertThat(updated.getCreatedBy()).isEqualTo(saved.getCreatedBy());
+        assertThat(updated.getLastModifiedDate()).isAfter(saved.getLastModifiedDate());
+        assertThat(updated.getLastModifiedBy()).isNotNull().isNotEqualTo(saved.getLastModifiedBy());
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void auditingBenchmark() {
+        AuditingHandler handler = AuditingHandler.from(mappingContext);
+        handler.setAuditorAware(() -> Optional.of(UUID.randomUUID().toString()));
+        handler.afterPropertiesSet();
+        AuditListener listener = new AuditListener(auditorAware);
+
+        measure("before", handler::markCreated);
+        transactionTemplate.executeWithoutResult(status -> measure("after", listener::touchForCreate));
+
+        // insert 1건 비용과 비교 (persist + flush, 롤백)
+        transactionTemplate.executeWithoutResult(status -> {
+            long begin = System.nanoTime();
+            for (int i = 0; i < INSERT_COUNT; i++) {
+                em.persist(new Member(prefix + i));
+                if ((i + 1) % 1_000 == 0) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+            em.flush();
+            System.out.printf("[auditing] insert  ns/insert=%.0f (auditing 포함)%n",
+                    (System.nanoTime() - begin) / (double) INSERT_COUNT);
+            status.setRollbackOnly();
+        });
+    }
+
+    // 새 Member MEMBER_COUNT 개에 등록 auditing 을 ROUNDS 번 -> 마지막 라운드의 엔티티 1건당 ns
+    private void measure(String label, Consumer<Member> stamper) {
+        double nanosPerEntity = 0;
+        for (int round = 0; round < ROUNDS; round++) { // 앞 라운드는 워밍업
+            List<Member> members = new ArrayList<>(MEMBER_COUNT);
+            for (int i = 0; i < MEMBER_COUNT; i++) {
+                members.add(new Member(prefix + i));
+            }
+            long begin = System.nanoTime();
+            for (Member member : members) {
+                stamper.accept(member);
+            }
+            nanosPerEntity = (System.nanoTime() - begin) / (double) MEMBER_COUNT;
+            assertThat(members.get(MEMBER_COUNT - 1).getCreatedBy()).isNotNull();
+        }
+        System.out.printf("[auditing] %-7s ns/entity=%.0f%n", label, nanosPerEntity);
+    }
+}
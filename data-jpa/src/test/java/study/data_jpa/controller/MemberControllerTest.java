@@ -0,0 +1,141 @@
+package study.data_jpa.controller;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import study.data_jpa.entity.Member;
+import study.data_jpa.repository.ApproximateCountCache;
+import study.data_jpa.repository.MemberRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+/members 페이지 조회가 count 쿼리 없이 1번에 끝나는지, total 옵션별로 건수가 어떻게 나오는지
+비동기로 세는 count 가 커밋된 데이터를 봐야 하니까 테스트 트랜잭션 없이 실행하고 끝나면 지운다.
+TTL 을 properties 로 바꾸거나 @AutoConfigureMockMvc 를 붙이면 컨텍스트가 하나 더 떠서 같은 DB 를 ddl-auto create 로 다시 만든다.
+(먼저 뜬 컨텍스트가 받아둔 시퀀스 구간과 겹쳐서 다른 테스트의 insert 가 pk 충돌) -> TTL 은 캐시에 직접 넣고 MockMvc 도 직접 만든다.
+ */
+@SpringBootTest
+class MemberControllerTest {
+
+    static final int MEMBER_COUNT = 7;
+    static final long TTL_MS = 300;
+
+    @Autowired WebApplicationContext context;
+    @Autowired MemberRepository memberRepository;
+    @Autowired ApproximateCountCache approximateCountCache;
+    @Autowired EntityManagerFactory emf;
+
+    final int age = 100_000 + ThreadLocalRandom.current().nextInt(100_000); // 다른 테스트 데이터와 겹치지 않는 나이
+    MockMvc mockMvc;
+    Statistics statistics;
+    boolean statisticsEnabled;
+    long defaultTtlMs;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+        defaultTtlMs = approximateCountCache.getTtlMs();
+        approximateCountCache.setTtlMs(TTL_MS);
+        approximateCountCache.invalidateAll();
+        saveMembers(MEMBER_COUNT);
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statisticsEnabled = statistics.isStatisticsEnabled();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        statistics.setStatisticsEnabled(statisticsEnabled); // 같은 컨텍스트를 쓰는 다른 테스트에 남지 않게
+        approximateCountCache.setTtlMs(defaultTtlMs);
+        approximateCountCache.invalidateAll();
+        memberRepository.deleteAllInBatch(memberRepository.findSliceByAge(age, Pageable.unpaged()).getContent());
+    }
+
+    @Test
+    public void sliceWithoutCount() throws Exception {
+        statistics.clear();
+        mockMvc.perform(get("/members").param("age", String.valueOf(age)).param("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(5))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andExpect(jsonPath("$.totalElements").doesNotExist());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1); // count 쿼리 없음
+
+        mockMvc.perform(get("/members").param("age", String.valueOf(age)).param("size", "5").param("page", "1"))
+                .andExpect(jsonPath("$.content.length()").value(MEMBER_COUNT - 5))
+                .andExpect(jsonPath("$.hasNext").value(false));
+    }
+
+    @Test
+    public void exactTotal() throws Exception {
+        statistics.clear();
+        mockMvc.perform(get("/members").param("age", String.valueOf(age)).param("total", "EXACT"))
+                .andExpect(jsonPath("$.totalElements").value(MEMBER_COUNT))
+                .andExpect(jsonPath("$.approximate").value(false));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void approximateTotal() throws Exception {
+        // 처음에는 모름 -> 뒤에서 센다.
+        mockMvc.perform(get("/members").param("age", String.valueOf(age)).param("total", "APPROX"))
+                .andExpect(jsonPath("$.totalElements").doesNotExist())
+                .andExpect(jsonPath("$.approximate").value(true));
+        awaitTotal(MEMBER_COUNT);
+
+        // 캐시된 건수 -> 쿼리는 목록 1번
+        statistics.clear();
+        mockMvc.perform(get("/members").param("age", String.valueOf(age)).param("total", "APPROX"))
+                .andExpect(jsonPath("$.totalElements").value(MEMBER_COUNT));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+        // TTL 이 지나면 예전 값을 주면서 다시 세고, 다음 요청부터 새 값
+        saveMembers(1);
+        awaitTotal(MEMBER_COUNT + 1);
+    }
+
+    @Test
+    public void oldPageEndpoint() throws Exception {
+        statistics.clear();
+        mockMvc.perform(get("/members/page").param("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(5));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2); // 목록 + count
+    }
+
+    private void awaitTotal(long expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (true) {
+            String body = mockMvc.perform(get("/members").param("age", String.valueOf(age)).param("total", "APPROX"))
+                    .andReturn().getResponse().getContentAsString();
+            if (body.contains("\"totalElements\":" + expected + ",")) return;
+            assertThat(System.currentTimeMillis()).as("approximate total %d", expected).isLessThan(deadline);
+            Thread.sleep(50);
+        }
+    }
+
+    private void saveMembers(int count) {
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            members.add(new Member("slice" + i, age));
+        }
+        memberRepository.saveAll(members);
+    }
+}
@@ -0,0 +1,188 @@
+package study.data_jpa.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.data_jpa.entity.Member;
+import study.data_jpa.entity.Team;
+import study.data_jpa.repository.ChunkedBulkUpdater.BulkUpdateResult;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+/*
+pk 구간으로 나눠서 실행하는 bulk update 테스트
+구간마다 커밋돼야 하니까 테스트 트랜잭션 없이 실행하고 끝나면 만든 데이터를 지운다.
+다른 테스트 데이터와 겹치지 않게 나이를 1000 이상으로 만들어서 그 구간만 update 한다.
+ */
+@SpringBootTest
+class ChunkedBulkUpdaterTest {
+
+    static final int MEMBER_COUNT = 5_000;
+    static final int BASE_AGE = 1_000;
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired MemberJpaRepository memberJpaRepository;
+    @Autowired ChunkedBulkUpdater chunkedBulkUpdater;
+    @Autowired TransactionTemplate transactionTemplate;
+    @PersistenceContext EntityManager em;
+
+    final String prefix = "chunk-" + UUID.randomUUID() + "-";
+
+    @AfterEach
+    void cleanUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("DELETE FROM Member m WHERE m.username LIKE :prefix")
+                    .setParameter("prefix", prefix + "%")
+                    .executeUpdate();
+            em.createQuery("DELETE FROM BulkJobCheckpoint c WHERE c.jobName LIKE :prefix")
+                    .setParameter("prefix", prefix + "%")
+                    .executeUpdate();
+        });
+    }
+
+    @Test
+    public void bulkAgePlusChunked() {
+        // given
+        List<Member> members = saveMembers(MEMBER_COUNT);
+
+        // when
+        BulkUpdateResult result = memberRepository.bulkAgePlusChunked(prefix + "age", BASE_AGE + 5);
+
+        // then
+        System.out.printf("[bulk-age-plus] rows=%d slices=%d rows/s=%d%n",
+                result.rows(), result.slices(), result.rowsPerSecond());
+        assertThat(result.slices()).isGreaterThan(1);
+        assertThat(result.rows()).isEqualTo(MEMBER_COUNT / 2);
+        assertAgesPlusOnce(members, BASE_AGE + 5);
+
+        // 끝난 job 을 다시 부르면 아무것도 하지 않는다.
+        BulkUpdateResult again = memberRepository.bulkAgePlusChunked(prefix + "age", BASE_AGE + 5);
+        assertThat(again.slices()).isZero();
+        assertThat(again.totalRows()).isEqualTo(MEMBER_COUNT / 2);
+        assertAgesPlusOnce(members, BASE_AGE + 5);
+    }
+
+    @Test
+    public void resumeAfterFailure() {
+        // given
+        List<Member> members = saveMembers(MEMBER_COUNT);
+        // 이름이 빈 문자열이면 0 으로 나누기 -> 중간 구간에서 실패 (서버가 죽은 것처럼)
+        Member broken = members.get(MEMBER_COUNT / 2);
+        rename(broken, "");
+        String jpql = "UPDATE Member m SET m.age = m.age + 1 + 0 / LENGTH(m.username)"
+                + " WHERE m.age >= :age AND m.id >= :fromId AND m.id < :toId";
+        String jobName = prefix + "resume";
+
+        // when
+        assertThatThrownBy(() -> chunkedBulkUpdater.execute(jobName, Member.class, jpql, Map.of("age", BASE_AGE), 500))
+                .isNotNull();
+        rename(broken, prefix + "fixed");
+        BulkUpdateResult result = chunkedBulkUpdater.execute(jobName, Member.class, jpql, Map.of("age", BASE_AGE), 500);
+
+        // then
+        assertThat(result.resumedFromId()).isGreaterThan(members.get(0).getId()).isLessThanOrEqualTo(broken.getId());
+        assertThat(result.totalRows()).isEqualTo(MEMBER_COUNT);
+        assertThat(result.rows()).isLessThan(MEMBER_COUNT);
+        assertAgesPlusOnce(members, BASE_AGE); // 실패 전에 커밋된 구간도 두번 더해지지 않는다.
+    }
+
+    @Test
+    public void differentParamsRejected() {
+        saveMembers(10);
+        memberJpaRepository.bulkAgePlusChunked(prefix + "params", BASE_AGE);
+
+        assertThatThrownBy(() -> memberJpaRepository.bulkAgePlusChunked(prefix + "params", BASE_AGE + 1))
+                .isInstanceOf(InvalidDataAccessApiUsageException.class) // @Repository 예외 변환
+                .hasCauseInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void rangeParamsRequired() {
+        // :fromIdx 는 :fromId 가 아니다.
+        assertThatThrownBy(() -> chunkedBulkUpdater.execute(prefix + "range", Member.class,
+                "UPDATE Member m SET m.age = m.age + 1 WHERE m.id >= :fromIdx AND m.id < :toId", Map.of()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void chunkSizeMustBePositive() {
+        String jpql = "UPDATE Member m SET m.age = m.age + 1 WHERE m.id >= :fromId AND m.id < :toId";
+        assertThatThrownBy(() -> chunkedBulkUpdater.execute(prefix + "chunk", Member.class, jpql, Map.of(), 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new ChunkedBulkUpdater(transactionTemplate, -1, 5000))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void longUpdateFitsCheckpoint() {
+        // given
+        List<Member> members = saveMembers(10);
+
+        // when (JPQL + 파라미터가 varchar(255) 보다 길다)
+        String jpql = "UPDATE Member m SET m.age = m.age + 1"
+                + " WHERE m.username LIKE :prefix AND m.age >= :age AND m.age < :maxAge AND m.username <> :excluded"
+                + " AND m.id >= :fromId AND m.id < :toId";
+        Map<String, Object> params = Map.of("prefix", prefix + "%", "age", BASE_AGE, "maxAge", BASE_AGE + 1_000,
+                "excluded", "x".repeat(200));
+        BulkUpdateResult result = chunkedBulkUpdater.execute(prefix + "long", Member.class, jpql, params);
+
+        // then
+        assertThat(result.rows()).isEqualTo(10);
+        assertAgesPlusOnce(members, BASE_AGE);
+    }
+
+    @Test
+    @Transactional // 트랜잭션 안에서 부르면 그 안에서 실행하고, 끝나면 롤백
+    public void detachOnlyUpdatedRange() {
+        // given
+        Team team = new Team("teamA");
+        em.persist(team);
+        Member member = new Member(prefix + "1", BASE_AGE, team);
+        em.persist(member);
+        em.flush();
+
+        // when
+        memberRepository.bulkAgePlusChunked(prefix + "detach", BASE_AGE);
+
+        // then
+        assertThat(em.contains(member)).isFalse(); // 바뀐 구간의 Member 는 detach
+        assertThat(em.contains(team)).isTrue(); // 나머지는 영속성 컨텍스트에 그대로
+        assertThat(memberRepository.findById(member.getId()).get().getAge()).isEqualTo(BASE_AGE + 1);
+    }
+
+    private List<Member> saveMembers(int count) {
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            members.add(new Member(prefix + i, BASE_AGE + i % 10));
+        }
+        return transactionTemplate.execute(status -> memberRepository.saveAll(members));
+    }
+
+    private void rename(Member member, String username) {
+        transactionTemplate.executeWithoutResult(status ->
+                memberRepository.findById(member.getId()).get().setUsername(username));
+    }
+
+    // age 이상이던 회원만 정확히 1 더해졌는지
+    private void assertAgesPlusOnce(List<Member> before, int age) {
+        List<Member> after = memberRepository.findAllById(before.stream().map(Member::getId).toList());
+        Map<Long, Integer> ages = new HashMap<>();
+        after.forEach(m -> ages.put(m.getId(), m.getAge()));
+        for (Member member : before) {
+            int expected = member.getAge() >= age ? member.getAge() + 1 : member.getAge();
+            assertThat(ages.get(member.getId())).as("member %d", member.getId()).isEqualTo(expected);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package study.data_jpa.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.data_jpa.entity.Item;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.*;
+
+/*
+Item 적재 벤치마크 : save 반복 / saveAll / insertAll (multi-row insert + jdbc batch)
+각각 커밋해야 실제 적재 속도니까 테스트 트랜잭션 없이 실행하고, 끝나면 만든 Item 을 지운다.
+처리량 측정(insertBenchmark) 은 ./gradlew benchmark 에서만 돌고, 수치는 출력만 한다.
+ */
+@SpringBootTest
+class ItemInsertBenchmarkTest {
+
+    static final int SAVE_COUNT = 5_000; // 한건씩 save (호출마다 트랜잭션) 는 느려서 적게
+    static final int SAVE_ALL_COUNT = 50_000;
+    static final int INSERT_ALL_COUNT = 300_000;
+
+    @Autowired ItemRepository itemRepository;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    final String prefix = "item-" + UUID.randomUUID() + "-";
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("delete from item where id like ?", prefix + "%");
+    }
+
+    @Test
+    public void insertAll() {
+        // given
+        Item saved = new Item(prefix + "saved");
+        itemRepository.save(saved);
+        List<Item> items = items("new", 250); // statement 2개 + 남은 50 row
+        List<Item> request = new ArrayList<>(items);
+        request.add(saved);
+
+        // when
+        int inserted = itemRepository.insertAll(request);
+
+        // then
+        assertThat(inserted).isEqualTo(250);
+        assertThat(items).noneMatch(Item::isNew);
+        assertThat(count()).isEqualTo(251);
+        Long withoutCreatedDate = jdbcTemplate.queryForObject(
+                "select count(*) from item where id like ? and created_date is null", Long.class, prefix + "%");
+        assertThat(withoutCreatedDate).isZero();
+        assertThat(itemRepository.findById(prefix + "new-249")).get().extracting(Item::isNew).isEqualTo(false);
+    }
+
+    @Test
+    public void duplicateIdRollsBack() {
+        itemRepository.insertAll(items("dup", 10));
+
+        List<Item> again = items("other", 150);
+        again.add(new Item(prefix + "dup-3"));
+        assertThatThrownBy(() -> itemRepository.insertAll(again)).isInstanceOf(DuplicateKeyException.class);
+
+        assertThat(count()).isEqualTo(10); // 앞에서 들어간 statement 도 같이 롤백
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void insertBenchmark() {
+        itemRepository.insertAll(items("warmup", 10_000));
+
+        measure("save", SAVE_COUNT, items -> items.forEach(itemRepository::save));
+        measure("saveAll", SAVE_ALL_COUNT, itemRepository::saveAll);
+        measure("insertAll", INSERT_ALL_COUNT, itemRepository::insertAll);
+    }
+
+    private void measure(String label, int count, Consumer<List<Item>> writer) {
+        List<Item> items = items(label, count);
+        long begin = System.nanoTime();
+        writer.accept(items);
+        double seconds = (System.nanoTime() - begin) / 1_000_000_000.0;
+
+        double perMinute = count / seconds * 60;
+        System.out.printf("[item-insert] %-9s items=%d seconds=%.2f items/min=%.0f%n", label, count, seconds, perMinute);
+    }
+
+    private List<Item> items(String label, int count) {
+        List<Item> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(new Item(prefix + label + "-" + i));
+        }
+        return items;
+    }
+
+    private long count() {
+        return jdbcTemplate.queryForObject("select count(*) from item where id like ?", Long.class, prefix + "%");
+    }
+}
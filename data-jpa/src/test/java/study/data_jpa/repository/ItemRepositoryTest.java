@@ -1,16 +1,20 @@
 package study.data_jpa.repository;
 
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import study.data_jpa.entity.Item;
 
-import static org.junit.jupiter.api.Assertions.*;
+import static org.assertj.core.api.Assertions.*;
 
 @SpringBootTest
 class ItemRepositoryTest {
 
     @Autowired ItemRepository itemRepository;
+    @Autowired EntityManager em;
+    @Autowired JdbcTemplate jdbcTemplate;
 
     @Test
     public void save() {
@@ -21,4 +25,11 @@ class ItemRepositoryTest {
         // 강의에서는 createdDate 를 사용해서 이 값이 존재하지 않으면 새로운 값이라고 설정함
         itemRepository.save(item);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void insertSizesMustBePositive() {
+        // 0 이면 statement 를 나누는 반복이 끝나지 않는다.
+        assertThatThrownBy(() -> new ItemRepositoryImpl(em, jdbcTemplate, 0, 50)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new ItemRepositoryImpl(em, jdbcTemplate, 100, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,71 @@
+package study.data_jpa.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.data_jpa.entity.Member;
+
+import static org.assertj.core.api.Assertions.*;
+
+/*
+회원 10만명 insert 벤치마크
+before : jdbc batch 끔 (batch size 1) -> insert 한건마다 DB 왕복
+after  : hibernate.jdbc.batch_size + pooled 시퀀스 -> insert 를 묶어서 전송
+끝나면 롤백해서 다른 테스트 데이터에 영향을 주지 않는다.
+ */
+@SpringBootTest
+@Transactional
+class MemberInsertBenchmarkTest {
+
+    static final int MEMBER_COUNT = 100_000;
+    static final int FLUSH_SIZE = 1_000; // 영속성 컨텍스트가 너무 커지지 않게 주기적으로 flush + clear
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Test
+    @Tag("benchmark")
+    public void insertMembers() {
+        Session session = em.unwrap(Session.class);
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        boolean statisticsEnabled = statistics.isStatisticsEnabled();
+        statistics.setStatisticsEnabled(true);
+        try {
+            session.setJdbcBatchSize(1);
+            long beforeStatements = insert(statistics, "before");
+
+            session.setJdbcBatchSize(null); // 설정 파일의 batch_size 사용
+            long afterStatements = insert(statistics, "after");
+
+            assertThat(afterStatements).isLessThan(beforeStatements / 10);
+        } finally {
+            statistics.setStatisticsEnabled(statisticsEnabled); // 같은 컨텍스트를 쓰는 다른 테스트에 남지 않게
+        }
+    }
+
+    private long insert(Statistics statistics, String label) {
+        statistics.clear();
+        long begin = System.nanoTime();
+        for (int i = 0; i < MEMBER_COUNT; i++) {
+            em.persist(new Member(label + i, i % 100));
+            if ((i + 1) % FLUSH_SIZE == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+        em.flush();
+        em.clear();
+        double seconds = (System.nanoTime() - begin) / 1_000_000_000.0;
+
+        long statements = statistics.getPrepareStatementCount();
+        System.out.printf("[member-insert] %-6s members=%d statements=%d inserts/s=%.0f%n",
+                label, MEMBER_COUNT, statements, MEMBER_COUNT / seconds);
+        return statements;
+    }
+}
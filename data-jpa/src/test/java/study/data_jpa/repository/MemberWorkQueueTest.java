@@ -0,0 +1,221 @@
+package study.data_jpa.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.data_jpa.entity.Member;
+import study.data_jpa.repository.LockMetrics.LockStats;
+import study.data_jpa.repository.MemberWorkQueue.ClaimMode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+/*
+락 타임아웃 / NOWAIT / SKIP LOCKED 테스트 + worker N 개가 같은 대기열을 비우는 처리량 비교
+락은 서로 다른 트랜잭션(스레드) 사이에서만 의미가 있으니까 테스트 트랜잭션 없이 실행하고 끝나면 지운다.
+처리량 비교(drainBenchmark) 는 ./gradlew benchmark 에서만 돌고, 수치는 출력만 한다.
+ */
+@SpringBootTest
+class MemberWorkQueueTest {
+
+    static final int BACKLOG = 400;
+    static final int WORKERS = 8;
+    static final int BATCH_SIZE = 10;
+    static final long WORK_MS = 2; // 회원 1명 처리 시간 (외부 호출 같은 것)
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired MemberWorkQueue memberWorkQueue;
+    @Autowired LockMetrics lockMetrics;
+    @Autowired TransactionTemplate transactionTemplate;
+    @PersistenceContext EntityManager em;
+
+    final int age = 200_000 + ThreadLocalRandom.current().nextInt(100_000); // 다른 테스트 데이터와 겹치지 않는 나이
+    final String username = "lock-" + age;
+    ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        lockMetrics.reset();
+        executor = Executors.newFixedThreadPool(WORKERS + 1);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        executor.shutdownNow();
+        transactionTemplate.executeWithoutResult(status -> em.createQuery("DELETE FROM Member m WHERE m.age >= :age AND m.age <= :done")
+                .setParameter("age", age)
+                .setParameter("done", age + 2)
+                .executeUpdate());
+    }
+
+    @Test
+    public void drainBacklog() throws Exception {
+        Result skipLocked = drain(ClaimMode.SKIP_LOCKED);
+
+        // SKIP LOCKED 는 각 회원을 정확히 한번씩 처리
+        assertThat(skipLocked.processed()).isEqualTo(BACKLOG);
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void drainBenchmark() throws Exception {
+        drain(ClaimMode.BLOCKING);
+        drain(ClaimMode.SKIP_LOCKED);
+    }
+
+    @Test
+    public void nowaitFailsFast() throws Exception {
+        Member member = saveMembers(1, age).get(0);
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> holder = holdLock(locked, release);
+
+        try {
+            long begin = System.nanoTime();
+            assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status ->
+                    lockMetrics.measure("member.nowait", () -> memberRepository.findNowaitById(member.getId()))))
+                    .isInstanceOf(PessimisticLockingFailureException.class);
+            long elapsedMs = (System.nanoTime() - begin) / 1_000_000;
+
+            assertThat(elapsedMs).as("기다리지 않고 실패").isLessThan(500);
+            assertThat(lockMetrics.getStats().get("member.nowait").getFailures().sum()).isEqualTo(1);
+            // @Lock 리포지토리 메소드는 따로 감싸지 않아도 잰다.
+            assertThat(lockMetrics.getStats().get("MemberRepository.findNowaitById").getFailures().sum()).isEqualTo(1);
+        } finally {
+            release.countDown();
+            holder.get();
+        }
+    }
+
+    @Test
+    public void lockTimeout() throws Exception {
+        saveMembers(1, age);
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> holder = holdLock(locked, release);
+
+        try {
+            long begin = System.nanoTime();
+            assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status ->
+                    memberRepository.findLockByUsername(username)))
+                    .isInstanceOf(PessimisticLockingFailureException.class);
+            long elapsedMs = (System.nanoTime() - begin) / 1_000_000;
+
+            // H2 세션 기본 락 타임아웃(1초) 이 아니라 메소드에 붙인 3초를 기다린다.
+            assertThat(elapsedMs).isBetween(Long.parseLong(LockHints.DEFAULT_TIMEOUT_MS) - 500, 10_000L);
+            LockStats stats = lockMetrics.getStats().get("MemberRepository.findLockByUsername");
+            assertThat(stats.getCount().sum()).isEqualTo(2); // holdLock + 타임아웃
+            assertThat(stats.getFailures().sum()).isEqualTo(1);
+            assertThat(stats.getMaxWaitMs()).isGreaterThanOrEqualTo(Long.parseLong(LockHints.DEFAULT_TIMEOUT_MS) - 500);
+        } finally {
+            release.countDown();
+            holder.get();
+        }
+    }
+
+    @Test
+    public void drainGivesUpWhileLocked() throws Exception {
+        saveMembers(1, age);
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> holder = holdLock(locked, release);
+        MemberWorkQueue queue = new MemberWorkQueue(memberRepository, transactionTemplate, 2, 10);
+
+        try {
+            // 누가 row 를 놓지 않으면 계속 돌지 않고 2번 만에 포기
+            assertThatThrownBy(() -> queue.drain(age, BATCH_SIZE, ClaimMode.BLOCKING, member -> member.setAge(age + 1)))
+                    .isInstanceOf(PessimisticLockingFailureException.class);
+            assertThat(lockMetrics.getStats().get("MemberRepository.findLockByAgeOrderById").getFailures().sum()).isEqualTo(2);
+        } finally {
+            release.countDown();
+            holder.get();
+        }
+        assertThat(memberRepository.countByAge(age)).isEqualTo(1);
+    }
+
+    // 다른 스레드에서 회원을 잠그고 release 될 때까지 커밋하지 않는다.
+    private Future<?> holdLock(CountDownLatch locked, CountDownLatch release) throws InterruptedException {
+        Future<?> holder = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+            memberRepository.findLockByUsername(username);
+            locked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertThat(locked.await(10, TimeUnit.SECONDS)).isTrue();
+        return holder;
+    }
+
+    // worker WORKERS 개가 age 대기열을 비운다. 처리하면 age + 1 로 바꿔서 대기열에서 뺀다.
+    private Result drain(ClaimMode mode) throws Exception {
+        saveMembers(BACKLOG, age);
+        AtomicInteger duplicates = new AtomicInteger(); // 이미 처리된 회원을 또 처리한 횟수
+
+        long begin = System.nanoTime();
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < WORKERS; i++) {
+            futures.add(executor.submit(() -> memberWorkQueue.drain(age, BATCH_SIZE, mode, member -> {
+                if (member.getAge() != age) duplicates.incrementAndGet();
+                sleep(WORK_MS);
+                member.setAge(age + 1);
+            })));
+        }
+        int processed = 0;
+        for (Future<Integer> future : futures) {
+            processed += future.get(60, TimeUnit.SECONDS);
+        }
+        double seconds = (System.nanoTime() - begin) / 1_000_000_000.0;
+
+        long remaining = memberRepository.countByAge(age);
+        long done = memberRepository.countByAge(age + 1);
+        LockStats stats = lockMetrics.getStats().get(mode == ClaimMode.SKIP_LOCKED
+                ? "MemberRepository.findSkipLockedByAgeOrderById" : "MemberRepository.findLockByAgeOrderById");
+        Result result = new Result(processed, BACKLOG / seconds);
+        System.out.printf("[member-claim] %-11s workers=%d backlog=%d processed=%d duplicates=%d members/s=%.0f"
+                        + " lockWaitAvg=%.1fms lockWaitMax=%.1fms lockTimeouts=%d%n",
+                mode, WORKERS, BACKLOG, processed, duplicates.get(), result.throughput(),
+                stats.getAverageWaitMs(), stats.getMaxWaitMs(), stats.getFailures().sum());
+
+        assertThat(remaining).isZero();
+        assertThat(done).isEqualTo(BACKLOG);
+
+        // 다음 모드를 위해 처리된 회원은 대기열 밖(age + 2) 으로
+        transactionTemplate.executeWithoutResult(status -> em.createQuery("UPDATE Member m SET m.age = :moved WHERE m.age = :done")
+                .setParameter("moved", age + 2)
+                .setParameter("done", age + 1)
+                .executeUpdate());
+        return result;
+    }
+
+    private List<Member> saveMembers(int count, int age) {
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            members.add(new Member(username, age));
+        }
+        return memberRepository.saveAll(members);
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record Result(int processed, double throughput) {
+    }
+}
@@ -5,6 +5,7 @@ import jakarta.persistence.EntityManager;
 import jpabook.jpashop.domain.*;
 import jpabook.jpashop.domain.item.Book;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -18,6 +19,7 @@ userB
 * SPRING1 BOOK
 * SPRING2 BOOK
  */
+@Profile("!seed") // 대량 데이터는 seed 프로파일의 DataSeeder 가 만든다.
 @Component
 @RequiredArgsConstructor
 public class InitDb {
@@ -1,10 +1,19 @@
 package jpabook.jpashop;
 
 import com.fasterxml.jackson.datatype.hibernate5.jakarta.Hibernate5JakartaModule;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import jpabook.jpashop.domain.PooledSequenceGenerator;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
+import java.net.URISyntaxException;
+
+@EnableScheduling // StockReservationService 의 주기적인 재고 flush
 @SpringBootApplication
 public class JpashopApplication {
 
@@ -18,4 +27,24 @@ public class JpashopApplication {
 //		module.configure(Hibernate5JakartaModule.Feature.FORCE_LAZY_LOADING, true);
 		return module;
 	}
+
+	// 2차 캐시 CacheManager 는 애플리케이션 컨텍스트마다 새로 만든다. (종료는 hibernate 가 SessionFactory 를 닫을 때 같이)
+	// JCache 기본 CacheManager 는 JVM 전체에서 공유돼서, 컨텍스트가 여러개 뜨면 (테스트) 다른 DB 의 엔티티가 캐시에서 섞여 나온다.
+	@Bean
+	HibernatePropertiesCustomizer secondLevelCacheManager() {
+		return properties -> {
+			try {
+				properties.put(ConfigSettings.CACHE_MANAGER, new CaffeineCachingProvider().getCacheManager(
+						getClass().getClassLoader().getResource("caffeine.conf").toURI(), getClass().getClassLoader()));
+			} catch (URISyntaxException e) {
+				throw new IllegalStateException(e);
+			}
+		};
+	}
+
+	@Bean
+	HibernatePropertiesCustomizer sequenceAllocationSize(
+			@Value("${jpashop.sequence.allocation-size:" + PooledSequenceGenerator.DEFAULT_ALLOCATION_SIZE + "}") int allocationSize) {
+		return properties -> properties.put(PooledSequenceGenerator.ALLOCATION_SIZE, allocationSize);
+	}
 }
@@ -0,0 +1,79 @@
+package jpabook.jpashop.api;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Arrays;
+import java.util.List;
+
+/*
+2차 캐시가 실제로 DB 조회를 줄여주는지 확인하기 위한 API
+통계 수집은 세션마다 비용이 드니까 stats 프로필에서만 켠다. -> --spring.profiles.active=stats (application-stats.yml)
+ */
+@Profile("stats")
+@RestController
+public class CacheStatsApiController {
+
+    private final Statistics statistics;
+
+    public CacheStatsApiController(EntityManagerFactory emf) {
+        this.statistics = emf.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @GetMapping("/api/cache/stats")
+    public CacheStatsResult cacheStats() {
+        List<RegionStats> regions = Arrays.stream(statistics.getSecondLevelCacheRegionNames())
+                .sorted()
+                .filter(name -> statistics.getCacheRegionStatistics(name) != null)
+                .map(name -> new RegionStats(name, statistics.getCacheRegionStatistics(name)))
+                .toList();
+
+        return new CacheStatsResult(
+                statistics.getSecondLevelCacheHitCount(),
+                statistics.getSecondLevelCacheMissCount(),
+                statistics.getQueryCacheHitCount(),
+                statistics.getQueryCacheMissCount(),
+                statistics.getPrepareStatementCount(), // 실제로 DB 에 나간 쿼리 수
+                regions);
+    }
+
+    // 측정 구간을 새로 잡고 싶을 때 통계 초기화
+    @PostMapping("/api/cache/stats/reset")
+    public void resetCacheStats() {
+        statistics.clear();
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class CacheStatsResult {
+        private long hitCount;
+        private long missCount;
+        private long queryCacheHitCount;
+        private long queryCacheMissCount;
+        private long prepareStatementCount;
+        private List<RegionStats> regions;
+    }
+
+    @Data
+    public static class RegionStats {
+        private String region;
+        private long hitCount;
+        private long missCount;
+        private long putCount;
+
+        public RegionStats(String region, CacheRegionStatistics stats) {
+            this.region = region;
+            hitCount = stats.getHitCount();
+            missCount = stats.getMissCount();
+            putCount = stats.getPutCount();
+        }
+    }
+}
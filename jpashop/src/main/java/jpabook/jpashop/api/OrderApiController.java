@@ -1,24 +1,41 @@
 package jpabook.jpashop.api;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 import jpabook.jpashop.domain.Address;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderItem;
 import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.repository.OrderCursor;
 import jpabook.jpashop.repository.OrderRepository;
 import jpabook.jpashop.repository.OrderSearch;
 import jpabook.jpashop.repository.order.query.OrderFlatDto;
-import jpabook.jpashop.repository.order.query.OrderItemQueryDto;
+import jpabook.jpashop.repository.order.query.OrderItemColumns;
+import jpabook.jpashop.repository.order.query.OrderQueryAssembler;
 import jpabook.jpashop.repository.order.query.OrderQueryDto;
 import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import jpabook.jpashop.repository.order.query.OrderViewRepository;
+import jpabook.jpashop.service.OrderCommand;
+import jpabook.jpashop.service.OrderService;
+import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /*
 이제는 1:N, N:N 경우에 대해서 알아보자.
@@ -32,10 +49,13 @@ public class OrderApiController {
 
     private final OrderRepository orderRepository;
     private final OrderQueryRepository orderQueryRepository;
+    private final OrderViewRepository orderViewRepository;
+    private final OrderService orderService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping("/api/v1/orders")
     public List<Order> ordersV1() {
-        List<Order> all = orderRepository.findAllByString(new OrderSearch());
+        List<Order> all = orderRepository.findAll(new OrderSearch());
         for (Order order : all) {
             order.getMember().getName();
             order.getDelivery().getAddress();
@@ -47,7 +67,7 @@ public class OrderApiController {
 
     @GetMapping("/api/v2/orders")
     public List<OrderDto> ordersV2() {
-        return orderRepository.findAllByString(new OrderSearch()).stream()
+        return orderRepository.findAll(new OrderSearch()).stream()
                 .map(OrderDto::new)
                 .toList();
     }
@@ -71,6 +91,39 @@ public class OrderApiController {
                 .toList();
     }
 
+    // v3.1 을 keyset 페이징으로 바꾼 버전 -> offset 대신 이전 응답의 nextCursor 를 넘겨준다.
+    // 첫 페이지는 cursor 없이 호출, nextCursor 가 null 이면 마지막 페이지
+    // limit 이 1 ~ 1000 밖이면 400 (스프링 6.1 부터 @RequestParam 의 제약 조건도 검증), 커서를 읽을 수 없어도 400
+    // (limit + 1 건을 읽으니까 상한이 없으면 Integer.MAX_VALUE 에서 넘친다)
+    @GetMapping("/api/v3.2/orders")
+    public CursorResult<List<OrderDto>> ordersV3_cursor(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", defaultValue = "100") @Positive @Max(1000) int limit
+    ) {
+        OrderCursor orderCursor = cursor == null ? null : decodeCursor(cursor);
+        // 한 건 더 읽어서 다음 페이지가 있는지 본다. (마지막 페이지가 딱 limit 건이면 빈 페이지로 가는 커서를 주지 않게)
+        List<Order> orders = orderRepository.findAllWithMemberDelivery(orderCursor, limit + 1);
+
+        String nextCursor = null;
+        if (orders.size() > limit) {
+            orders = orders.subList(0, limit);
+            Order last = orders.get(limit - 1);
+            nextCursor = new OrderCursor(last.getOrderDate(), last.getId()).encode();
+        }
+        List<OrderDto> collect = orders.stream()
+                .map(OrderDto::new)
+                .toList();
+        return new CursorResult<>(collect, nextCursor);
+    }
+
+    private static OrderCursor decodeCursor(String cursor) {
+        try {
+            return OrderCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
     @GetMapping("/api/v4/orders")
     public List<OrderQueryDto> ordersV4() {
         return orderQueryRepository.findOrderQueryDtos();
@@ -88,28 +141,108 @@ public class OrderApiController {
         // 여기에 query DTO 스팩을 맞추려면? 노가다 뛰면 된다.
         List<OrderFlatDto> flats = orderQueryRepository.findAllByDto_flat();
 
-        // OrderQueryDTO 에서 @EqualsAndHashCode(of = "orderId") 를 넣어서 그룹화 할때 기준을 만들어야함, 이거 안쓰면 객체가 기준이라 이상함
-        return flats.stream()
-                .collect(Collectors.groupingBy(o -> new OrderQueryDto(
-                                o.getOrderId(),
-                                o.getName(),
-                                o.getOrderDate(),
-                                o.getOrderStatus(),
-                                o.getAddress()),
-                        Collectors.mapping(o -> new OrderItemQueryDto(
-                                o.getOrderId(),
-                                o.getItemName(),
-                                o.getOrderPrice(),
-                                o.getCount()), Collectors.toList())))
-                .entrySet().stream()
-                .map(e -> new OrderQueryDto(
-                        e.getKey().getOrderId(),
-                        e.getKey().getName(),
-                        e.getKey().getOrderDate(),
-                        e.getKey().getOrderStatus(),
-                        e.getKey().getAddress(),
-                        e.getValue()))
-                .collect(Collectors.toList());
+        // 예전에는 OrderQueryDto 자체를 groupingBy 의 key 로 썼는데 (@EqualsAndHashCode(of = "orderId"))
+        // row 마다 key 용 DTO + HashMap Entry 가 생겨서, orderId -> 위치 인덱스로 바로 묶는다.
+        return OrderQueryAssembler.groupFlat(flats);
+    }
+
+    // v6 + 페이징, 주문 id 를 먼저 페이징하고 그 id 들로만 flat 조인 -> 페이지당 쿼리 2번
+    // offset 이 음수거나 limit 이 1 보다 작으면 400
+    @GetMapping("/api/v6.1/orders")
+    public List<OrderQueryDto> ordersV6_page(
+            @RequestParam(value = "offset", defaultValue = "0") @PositiveOrZero int offset,
+            @RequestParam(value = "limit", defaultValue = "100") @Positive int limit
+    ) {
+        return orderQueryRepository.findAllByDto_flat(offset, limit);
+    }
+
+    // v6 의 스트리밍 버전 -> 주문 1건이 완성될 때마다 바로 한줄(NDJSON)씩 응답에 써버린다.
+    // 전체 결과를 List 로 들고 있지 않으니 주문 수와 상관없이 메모리가 일정함
+    @GetMapping(value = "/api/v6/orders/stream", produces = "application/x-ndjson")
+    public void ordersV6_stream(HttpServletResponse response) throws IOException {
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        Writer writer = response.getWriter();
+
+        orderQueryRepository.streamAllByDto_flat(o -> {
+            try {
+                writer.write(objectMapper.writeValueAsString(o));
+                writer.write("\n");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        writer.flush();
+    }
+
+    // 읽기 모델(order_view) 에서 조회 -> 조인 없이 한 테이블만 순서대로 읽어서 v5 / v6 와 같은 모양으로
+    // jpashop.order-view.enabled=true 일 때 주문 / 취소 / 회원 수정이 커밋되면 갱신된다. (전체 다시 채우기는 OrderViewApiController)
+    @GetMapping("/api/v7/orders")
+    public List<OrderQueryDto> ordersV7(@RequestParam(value = "memberId", required = false) Long memberId) {
+        List<OrderFlatDto> flats = memberId == null
+                ? orderViewRepository.findAll()
+                : orderViewRepository.findByMemberId(memberId);
+        return OrderQueryAssembler.groupFlat(flats);
+    }
+
+    // 주문상품 전체를 컬럼별 배열로 (분석용) -> row 마다 객체를 만들지 않고 배열 그대로 JSON 으로 나간다.
+    @GetMapping(value = "/api/v1/order-items/columnar", produces = MediaType.APPLICATION_JSON_VALUE)
+    public OrderItemColumns orderItemsColumnar() {
+        return orderQueryRepository.findAllOrderItemColumns();
+    }
+
+    // 같은 데이터를 바이너리로 (Accept: application/octet-stream), 포맷은 OrderItemColumns 참고
+    @GetMapping(value = "/api/v1/order-items/columnar", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public void orderItemsColumnarBinary(HttpServletResponse response) throws IOException {
+        OrderItemColumns columns = orderQueryRepository.findAllOrderItemColumns();
+        response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        columns.writeBinary(response.getOutputStream());
+    }
+
+    // 일괄 주문 -> 회원, 상품은 in 쿼리 한번씩, 주문 insert 는 jdbc batch 로 묶어서 저장
+    @PostMapping("/api/v1/orders/bulk")
+    public BulkOrderResponse bulkOrder(@RequestBody @Valid BulkOrderRequest request) {
+        List<OrderCommand> commands = request.getOrders().stream()
+                .map(o -> new OrderCommand(o.getMemberId(), o.getItems().stream()
+                        .map(i -> new OrderCommand.OrderLine(i.getItemId(), i.getCount()))
+                        .toList()))
+                .toList();
+        return new BulkOrderResponse(orderService.orderAll(commands));
+    }
+
+    @Data
+    public static class BulkOrderRequest {
+        @NotEmpty @Valid
+        private List<CreateOrderRequest> orders;
+    }
+
+    @Data
+    public static class CreateOrderRequest {
+        @NotNull
+        private Long memberId;
+        @NotEmpty @Valid
+        private List<OrderLineRequest> items;
+    }
+
+    @Data
+    public static class OrderLineRequest {
+        @NotNull
+        private Long itemId;
+        @Positive
+        private int count;
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class BulkOrderResponse {
+        private List<Long> orderIds;
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class CursorResult<T> {
+        private T data;
+        private String nextCursor;
     }
 
     @Data
@@ -0,0 +1,207 @@
+package jpabook.jpashop.api;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import jpabook.jpashop.api.OrderApiController.OrderDto;
+import jpabook.jpashop.api.OrderApiController.OrderItemDto;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.repository.order.query.OrderItemQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryDto;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/*
+주문 API DTO 전용 JSON serializer (스프링 부트가 Module 빈을 ObjectMapper 에 자동으로 등록)
+기본 BeanSerializer 는 getter 를 reflection 으로 부르고, Hibernate5JakartaModule 이 컬렉션 필드마다
+hibernate 컬렉션인지 확인하는 serializer 를 한겹 더 씌운다. DTO 에는 프록시가 들어올 일이 없으니까
+JsonGenerator 로 필드를 직접 쓴다. (필드 이름은 미리 인코딩해둔 SerializedString)
+
+출력은 기본 직렬화와 byte 단위로 같아야 한다. (필드 순서, 날짜 형식 ISO_LOCAL_DATE_TIME, enum 은 name)
+DTO 에 필드를 추가하면 여기도 같이 고칠 것 -> OrderJsonModuleTest 가 기본 직렬화와 비교한다.
+엔티티를 그대로 내보내는 v1 은 프록시 처리가 필요하니까 계속 Hibernate5JakartaModule 을 탄다.
+ */
+@Component
+public class OrderJsonModule extends SimpleModule {
+
+    private static final SerializableString ORDER_ID = new SerializedString("orderId");
+    private static final SerializableString NAME = new SerializedString("name");
+    private static final SerializableString ORDER_DATE = new SerializedString("orderDate");
+    private static final SerializableString ORDER_STATUS = new SerializedString("orderStatus");
+    private static final SerializableString ADDRESS = new SerializedString("address");
+    private static final SerializableString ORDER_ITEMS = new SerializedString("orderItems");
+    private static final SerializableString ITEM_NAME = new SerializedString("itemName");
+    private static final SerializableString ORDER_PRICE = new SerializedString("orderPrice");
+    private static final SerializableString COUNT = new SerializedString("count");
+    private static final SerializableString CITY = new SerializedString("city");
+    private static final SerializableString STREET = new SerializedString("street");
+    private static final SerializableString ZIPCODE = new SerializedString("zipcode");
+
+    public OrderJsonModule() {
+        super("OrderJsonModule");
+        addSerializer(OrderDto.class, new JsonSerializer<>() {
+            @Override
+            public void serialize(OrderDto value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+                gen.writeStartObject(value);
+                writeOrder(gen, value.getOrderId(), value.getName(), value.getOrderDate(), value.getOrderStatus(), value.getAddress());
+                gen.writeFieldName(ORDER_ITEMS);
+                List<OrderItemDto> items = value.getOrderItems();
+                if (items == null) {
+                    gen.writeNull();
+                } else {
+                    gen.writeStartArray(items, items.size());
+                    for (OrderItemDto item : items) {
+                        writeItem(gen, item);
+                    }
+                    gen.writeEndArray();
+                }
+                gen.writeEndObject();
+            }
+        });
+        addSerializer(OrderItemDto.class, new JsonSerializer<>() {
+            @Override
+            public void serialize(OrderItemDto value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+                writeItem(gen, value);
+            }
+        });
+        addSerializer(OrderSimpleQueryDto.class, new JsonSerializer<>() {
+            @Override
+            public void serialize(OrderSimpleQueryDto value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+                gen.writeStartObject(value);
+                writeOrder(gen, value.getOrderId(), value.getName(), value.getOrderDate(), value.getOrderStatus(), value.getAddress());
+                gen.writeEndObject();
+            }
+        });
+        addSerializer(OrderQueryDto.class, new JsonSerializer<>() {
+            @Override
+            public void serialize(OrderQueryDto value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+                gen.writeStartObject(value);
+                writeOrder(gen, value.getOrderId(), value.getName(), value.getOrderDate(), value.getOrderStatus(), value.getAddress());
+                gen.writeFieldName(ORDER_ITEMS);
+                List<OrderItemQueryDto> items = value.getOrderItems();
+                if (items == null) {
+                    gen.writeNull();
+                } else {
+                    gen.writeStartArray(items, items.size());
+                    for (OrderItemQueryDto item : items) {
+                        writeQueryItem(gen, item);
+                    }
+                    gen.writeEndArray();
+                }
+                gen.writeEndObject();
+            }
+        });
+        addSerializer(OrderItemQueryDto.class, new JsonSerializer<>() {
+            @Override
+            public void serialize(OrderItemQueryDto value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+                writeQueryItem(gen, value);
+            }
+        });
+    }
+
+    // 주문 DTO 들의 공통 필드 (orderId, name, orderDate, orderStatus, address)
+    private static void writeOrder(JsonGenerator gen, Long orderId, String name, LocalDateTime orderDate,
+                                   OrderStatus orderStatus, Address address) throws IOException {
+        gen.writeFieldName(ORDER_ID);
+        if (orderId == null) gen.writeNull();
+        else gen.writeNumber(orderId);
+        gen.writeFieldName(NAME);
+        gen.writeString(name);
+        gen.writeFieldName(ORDER_DATE);
+        writeDateTime(gen, orderDate);
+        gen.writeFieldName(ORDER_STATUS);
+        gen.writeString(orderStatus == null ? null : orderStatus.name());
+        gen.writeFieldName(ADDRESS);
+        if (address == null) {
+            gen.writeNull();
+        } else {
+            gen.writeStartObject(address);
+            gen.writeFieldName(CITY);
+            gen.writeString(address.getCity());
+            gen.writeFieldName(STREET);
+            gen.writeString(address.getStreet());
+            gen.writeFieldName(ZIPCODE);
+            gen.writeString(address.getZipcode());
+            gen.writeEndObject();
+        }
+    }
+
+    /*
+    ISO_LOCAL_DATE_TIME 과 같은 형식 (2024-01-02T03:04:05.1234, 초 이하는 뒤쪽 0 을 뺀다) 을 char[] 에 바로 쓴다.
+    DateTimeFormatter.format 은 호출마다 StringBuilder + 출력 컨텍스트 + String 을 만들어서 직렬화 할당의 대부분을 차지했다.
+    4자리를 넘는 연도처럼 드문 경우는 그냥 formatter 로
+     */
+    private static void writeDateTime(JsonGenerator gen, LocalDateTime dateTime) throws IOException {
+        if (dateTime == null) {
+            gen.writeNull();
+            return;
+        }
+        int year = dateTime.getYear();
+        if (year < 0 || year > 9999) {
+            gen.writeString(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(dateTime));
+            return;
+        }
+        char[] buf = new char[29];
+        digits(buf, 0, year, 4);
+        buf[4] = '-';
+        digits(buf, 5, dateTime.getMonthValue(), 2);
+        buf[7] = '-';
+        digits(buf, 8, dateTime.getDayOfMonth(), 2);
+        buf[10] = 'T';
+        digits(buf, 11, dateTime.getHour(), 2);
+        buf[13] = ':';
+        digits(buf, 14, dateTime.getMinute(), 2);
+        buf[16] = ':';
+        digits(buf, 17, dateTime.getSecond(), 2);
+        int len = 19;
+        int nano = dateTime.getNano();
+        if (nano != 0) {
+            buf[19] = '.';
+            digits(buf, 20, nano, 9);
+            len = 29;
+            while (buf[len - 1] == '0') len--;
+        }
+        gen.writeString(buf, 0, len);
+    }
+
+    private static void digits(char[] buf, int offset, int value, int width) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            buf[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private static void writeItem(JsonGenerator gen, OrderItemDto item) throws IOException {
+        gen.writeStartObject(item);
+        gen.writeFieldName(ITEM_NAME);
+        gen.writeString(item.getItemName());
+        gen.writeFieldName(ORDER_PRICE);
+        gen.writeNumber(item.getOrderPrice());
+        gen.writeFieldName(COUNT);
+        gen.writeNumber(item.getCount());
+        gen.writeEndObject();
+    }
+
+    private static void writeQueryItem(JsonGenerator gen, OrderItemQueryDto item) throws IOException {
+        gen.writeStartObject(item);
+        gen.writeFieldName(ORDER_ID);
+        if (item.getOrderId() == null) gen.writeNull();
+        else gen.writeNumber(item.getOrderId());
+        gen.writeFieldName(ITEM_NAME);
+        gen.writeString(item.getItemName());
+        gen.writeFieldName(ORDER_PRICE);
+        gen.writeNumber(item.getOrderPrice());
+        gen.writeFieldName(COUNT);
+        gen.writeNumber(item.getCount());
+        gen.writeEndObject();
+    }
+}
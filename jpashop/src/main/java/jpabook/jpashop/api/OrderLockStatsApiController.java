@@ -0,0 +1,55 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.service.OrderLockExecutor;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/*
+주문할 때 상품별로 낙관적 락 충돌이 얼마나 나는지 확인하기 위한 API
+충돌이 많은 상품은 jpashop.order.lock-mode: pessimistic 을 고려
+ */
+@RestController
+@RequiredArgsConstructor
+public class OrderLockStatsApiController {
+
+    private final OrderLockExecutor orderLockExecutor;
+
+    @GetMapping("/api/orders/lock-stats")
+    public LockStatsResult lockStats() {
+        List<ItemLockStatsDto> items = orderLockExecutor.getStats().entrySet().stream()
+                .map(e -> new ItemLockStatsDto(
+                        e.getKey(),
+                        e.getValue().getConflicts().sum(),
+                        e.getValue().getRetries().sum(),
+                        e.getValue().getExhausted().sum()))
+                .toList();
+        return new LockStatsResult(orderLockExecutor.getLockMode().name(), items);
+    }
+
+    @PostMapping("/api/orders/lock-stats/reset")
+    public void resetLockStats() {
+        orderLockExecutor.resetStats();
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class LockStatsResult {
+        private String lockMode;
+        private List<ItemLockStatsDto> items;
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class ItemLockStatsDto {
+        private Long itemId;
+        private long conflicts;
+        private long retries;
+        private long exhausted;
+    }
+}
@@ -27,7 +27,7 @@ public class OrderSimpleApiController {
 
     @GetMapping("/api/v1/simple-orders")
     public List<Order> ordersV1() {
-        List<Order> all = orderRepository.findAllByString(new OrderSearch());
+        List<Order> all = orderRepository.findAll(new OrderSearch());
         // 왜 무한루프가 발생하는가? Order에 가면 member가 있고 member에 가면 order가 있으니까 계속 무한루프가 발생
         // 어떻게 해결하지? -> 양방향 연관관계에 걸리는 친구들을 전부다 JsonIgnore 처리 해줘야한다.
         // 즉 order 입장에서 양방향 연관관계에 걸리는 친구들에 ignore
@@ -49,7 +49,7 @@ public class OrderSimpleApiController {
     public List<OrderSimpleQueryDto> ordersV2 () {
         // ORDER 2개 등장
         // N + 1 문제 = 1번째 Orders + 회원 + 배송 + 회원 + 배송 = 5번
-        return orderRepository.findAllByString(new OrderSearch())
+        return orderRepository.findAll(new OrderSearch())
                 .stream()
                 .map(o -> new OrderSimpleQueryDto(
                         o.getId(),
@@ -0,0 +1,86 @@
+package jpabook.jpashop.api;
+
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import jpabook.jpashop.repository.order.query.MemberOrderSummaryDto;
+import jpabook.jpashop.repository.order.query.OrderStatusSummaryDto;
+import jpabook.jpashop.repository.order.query.OrderTotalDto;
+import jpabook.jpashop.service.OrderSummaryService;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/*
+주문 합계 API (대시보드용)
+주문을 엔티티로 올려서 Order.getTotalPrice() 를 부르면 주문마다 orderItems 를 지연 로딩하니까 합계는 DB 에서 GROUP BY 로 계산한다.
+기간은 주문일 기준 from ~ to (포함), 안 주면 최근 30일
+offset 이 음수거나 limit 이 1 보다 작으면 400
+ */
+@RestController
+@RequiredArgsConstructor
+public class OrderSummaryApiController {
+
+    private static final int DEFAULT_DAYS = 30;
+
+    private final OrderSummaryService orderSummaryService;
+
+    @GetMapping("/api/v1/order-summary/orders")
+    public Result<List<OrderTotalDto>> orderTotals(
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "offset", defaultValue = "0") @PositiveOrZero int offset,
+            @RequestParam(value = "limit", defaultValue = "100") @Positive int limit) {
+        LocalDate end = endOf(to);
+        return new Result<>(orderSummaryService.findOrderTotals(startOf(from, end), end, offset, limit));
+    }
+
+    @GetMapping("/api/v1/order-summary/members")
+    public Result<List<MemberOrderSummaryDto>> memberSummaries(
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = endOf(to);
+        return new Result<>(orderSummaryService.findMemberSummaries(startOf(from, end), end));
+    }
+
+    @GetMapping("/api/v1/order-summary/status")
+    public Result<List<OrderStatusSummaryDto>> statusSummaries(
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = endOf(to);
+        return new Result<>(orderSummaryService.findStatusSummaries(startOf(from, end), end));
+    }
+
+    // 요약 테이블 다시 계산 (seed 처럼 SQL 로 직접 넣은 주문이 있을 때)
+    @PostMapping("/api/v1/order-summary/rebuild")
+    public RebuildResult rebuild() {
+        return new RebuildResult(orderSummaryService.rebuild());
+    }
+
+    private LocalDate endOf(LocalDate to) {
+        return to != null ? to : LocalDate.now();
+    }
+
+    private LocalDate startOf(LocalDate from, LocalDate end) {
+        return from != null ? from : end.minusDays(DEFAULT_DAYS - 1);
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class Result<T> {
+        private T data;
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class RebuildResult {
+        private int rows;
+    }
+}
@@ -0,0 +1,33 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.repository.order.query.OrderViewRepository;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/*
+order_view 읽기 모델 관리 API
+읽기 모델을 쓰지 않으면 (jpashop.order-view.enabled=false) 아무도 갱신하지 않는 테이블을 채울 이유가 없으니 OrderViewProjector 처럼 켰을 때만 등록한다.
+ */
+@RestController
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "jpashop.order-view.enabled", havingValue = "true")
+public class OrderViewApiController {
+
+    private final OrderViewRepository orderViewRepository;
+
+    // order_view 전체 다시 채우기 (backfill)
+    @PostMapping("/api/v7/orders/rebuild")
+    public RebuildResult rebuildOrderView() {
+        return new RebuildResult(orderViewRepository.rebuild());
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class RebuildResult {
+        private int rows;
+    }
+}
@@ -0,0 +1,160 @@
+package jpabook.jpashop.api;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jpabook.jpashop.service.ChangeCounters;
+import jpabook.jpashop.service.ChangeCounters.Aggregate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+주문 목록 API 응답 캐시 + 조건부 GET (jpashop.response-cache.enabled=true 일 때만 등록)
+클라이언트가 같은 목록을 계속 polling 하면 매번 조인 쿼리 + JSON 직렬화를 다시 하게 되는데,
+응답이 의존하는 애그리거트의 변경 카운터(ChangeCounters) 가 그대로면 결과도 같으니까
+
+- If-None-Match 가 지금 ETag 와 같으면 -> 304 (DB, Jackson 둘 다 안 탐)
+- 같은 URL + 파라미터로 저장해둔 응답의 버전이 지금과 같으면 -> 저장해둔 JSON bytes 를 그대로 내려줌
+- 아니면 컨트롤러를 실행하고 200 응답 body 를 저장
+
+ETag = 시작 시각 + 카운터 값들 -> 카운터가 같으면 같은 body 라서 strong ETag 로 쓴다.
+(시작 시각을 넣는 이유: 재시작하면 카운터가 0 부터라 예전 ETag 와 겹칠 수 있어서)
+카운터는 조회 전에 읽는다. 조회하는 사이에 커밋이 끼어들어도 그 응답은 예전 버전으로 저장되고, 다음 요청은 새 버전으로 찾으니까 stale 응답이 나가지 않는다.
+JdbcTemplate / bulk update 처럼 서비스를 거치지 않는 쓰기는 카운터를 안 올리니까 반영되지 않는다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "jpashop.response-cache.enabled", havingValue = "true")
+public class ResponseCacheFilter extends OncePerRequestFilter {
+
+    private static final Aggregate[] ORDER_MEMBER = {Aggregate.ORDER, Aggregate.MEMBER};
+    private static final Aggregate[] ORDER_MEMBER_ITEM = {Aggregate.ORDER, Aggregate.MEMBER, Aggregate.ITEM};
+
+    // 캐시하는 API -> 응답에 들어가는 애그리거트 (주문 목록에는 회원 이름, 컬렉션 API 에는 상품 이름도 나간다)
+    private static final Map<String, Aggregate[]> ENDPOINTS = Map.of(
+            "/api/v2/simple-orders", ORDER_MEMBER,
+            "/api/v3/simple-orders", ORDER_MEMBER,
+            "/api/v4/simple-orders", ORDER_MEMBER,
+            "/api/v2/orders", ORDER_MEMBER_ITEM,
+            "/api/v3/orders", ORDER_MEMBER_ITEM,
+            "/api/v3.1/orders", ORDER_MEMBER_ITEM,
+            "/api/v4/orders", ORDER_MEMBER_ITEM,
+            "/api/v5/orders", ORDER_MEMBER_ITEM,
+            "/api/v6/orders", ORDER_MEMBER_ITEM,
+            "/api/v6.1/orders", ORDER_MEMBER_ITEM);
+
+    private final ChangeCounters changeCounters;
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Cache<String, CachedResponse> cache;
+
+    private final LongAdder hits = new LongAdder(); // 저장해둔 body 로 응답
+    private final LongAdder notModified = new LongAdder(); // 304
+    private final LongAdder misses = new LongAdder(); // 컨트롤러 실행
+
+    public ResponseCacheFilter(ChangeCounters changeCounters,
+                               @Value("${jpashop.response-cache.max-bytes:67108864}") long maxBytes) {
+        this.changeCounters = changeCounters;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes) // body 크기 기준으로 제한
+                .weigher((String key, CachedResponse value) -> key.length() + value.body().length)
+                .build();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"GET".equals(request.getMethod()) || !ENDPOINTS.containsKey(request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String etag = etag(ENDPOINTS.get(request.getRequestURI()));
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache"); // 클라이언트가 저장은 하되 매번 ETag 로 확인하게
+
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            notModified.increment();
+            response.setHeader(HttpHeaders.ETAG, etag);
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        String key = key(request);
+        CachedResponse cached = cache.getIfPresent(key);
+        if (cached != null && cached.etag().equals(etag)) {
+            hits.increment();
+            response.setHeader(HttpHeaders.ETAG, etag);
+            response.setContentType(cached.contentType());
+            response.setContentLength(cached.body().length);
+            response.getOutputStream().write(cached.body());
+            return;
+        }
+
+        misses.increment();
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        try {
+            chain.doFilter(request, wrapper);
+            if (wrapper.getStatus() == HttpServletResponse.SC_OK && !wrapper.isCommitted()) {
+                wrapper.setHeader(HttpHeaders.ETAG, etag);
+                cache.put(key, new CachedResponse(etag, wrapper.getContentType(), wrapper.getContentAsByteArray()));
+            }
+        } finally {
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    private String etag(Aggregate[] aggregates) {
+        StringBuilder sb = new StringBuilder("\"").append(epoch);
+        for (Aggregate aggregate : aggregates) {
+            sb.append('-').append(changeCounters.get(aggregate));
+        }
+        return sb.append('"').toString();
+    }
+
+    // If-None-Match: "a", "b" 또는 * (weak 비교라서 W/ 는 떼고 본다)
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) tag = tag.substring(2);
+            if (tag.equals("*") || tag.equals(etag)) return true;
+        }
+        return false;
+    }
+
+    // 같은 API 라도 offset / limit 같은 파라미터가 다르면 다른 응답
+    private static String key(HttpServletRequest request) {
+        String query = request.getQueryString();
+        return query == null ? request.getRequestURI() : request.getRequestURI() + "?" + query;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getNotModified() {
+        return notModified.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private record CachedResponse(String etag, String contentType, byte[] body) {
+    }
+}
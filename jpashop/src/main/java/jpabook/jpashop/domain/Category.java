@@ -4,6 +4,9 @@ import jakarta.persistence.*;
 import jpabook.jpashop.domain.item.Item;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -12,13 +15,16 @@ import java.util.List;
 @Getter @Setter
 public class Category {
 
-    @Id @GeneratedValue
+    @Id
+    @GeneratedValue(generator = "category_seq")
+    @GenericGenerator(name = "category_seq", type = PooledSequenceGenerator.class)
     @Column(name = "category_id")
     private Long id;
 
     private String name;
 
     @ManyToMany
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "category-items") // 컬렉션 캐시에는 item id 만 들어가고 item 자체는 Item 캐시에서 꺼낸다.
     @JoinTable(
             name = "category_item",
             joinColumns = @JoinColumn(name = "category_id"),
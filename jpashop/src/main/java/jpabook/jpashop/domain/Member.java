@@ -5,15 +5,23 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotEmpty;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
 
 import java.util.ArrayList;
 import java.util.List;
 
 
 @Entity
+@Table(indexes = @Index(name = "idx_member_name", columnList = "name")) // 주문 검색의 회원 이름 앞부분 검색 (name like 'kim%')
 @Getter @Setter
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "member")
 public class Member {
-    @Id @GeneratedValue
+    @Id
+    @GeneratedValue(generator = "member_seq")
+    @GenericGenerator(name = "member_seq", type = PooledSequenceGenerator.class)
     @Column(name = "member_id")
     private Long Id;
 
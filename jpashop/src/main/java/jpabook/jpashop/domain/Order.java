@@ -5,19 +5,26 @@ import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_order_date_id", columnList = "orderDate, order_id"), // keyset 페이징용
+        // 주문 검색: 이름으로 찾은 회원의 주문을 상태까지 인덱스에서 거른다.
+        // status 단독 인덱스는 값이 2개(ORDER, CANCEL)뿐이라 거의 거르지 못하고, 오히려 이름 검색보다 먼저 선택되어버려서 두지 않는다.
+        @Index(name = "idx_orders_member_status", columnList = "member_id, status")
+})
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 public class Order {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "orders_seq")
+    @GenericGenerator(name = "orders_seq", type = PooledSequenceGenerator.class)
     @Column(name = "order_id")
     private Long id;
 
@@ -72,14 +79,20 @@ public class Order {
     주문 취소
      */
     public void cancel(){
+        cancelWithoutStock();
+        for (OrderItem orderItem : orderItems) {
+            orderItem.cancel();
+        }
+    }
+
+    /*
+    주문 상태만 취소, 재고 복구는 호출한 쪽에서 (StockReservationService 가 재고를 관리할 때)
+     */
+    public void cancelWithoutStock(){
         if (delivery.getStatus() == DeliveryStatus.COMP){
             throw new IllegalStateException("이미 배송완료된 상품은 취소가 불가능합니다.");
         }
-
         this.setStatus(OrderStatus.CANCEL);
-        for (OrderItem orderItem : orderItems) {
-            orderItem.cancel();
-        }
     }
     // 조회 로직
     /*
@@ -7,13 +7,16 @@ import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
 
 @Entity
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED) // 빈 생성자를 막아서 생성 메소드가 아닌 다른 메소드를 허용하지 않음 -> 유지보수 측면
 public class OrderItem {
 
-    @Id @GeneratedValue
+    @Id
+    @GeneratedValue(generator = "order_item_seq")
+    @GenericGenerator(name = "order_item_seq", type = PooledSequenceGenerator.class)
     @Column(name = "order_item_id")
     private Long id;
 
@@ -40,6 +43,15 @@ public class OrderItem {
         return orderItem;
     }
 
+    // 재고를 이미 다른 곳(StockReservationService)에서 차감했을 때 사용하는 생성 메소드
+    public static OrderItem createReservedOrderItem(Item item, int orderPrice, int count) {
+        OrderItem orderItem = new OrderItem();
+        orderItem.setItem(item);
+        orderItem.setOrderPrice(orderPrice);
+        orderItem.setCount(count);
+        return orderItem;
+    }
+
 
     // 비즈니스 로직
     public void cancel() {
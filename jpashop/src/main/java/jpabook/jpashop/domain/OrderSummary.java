@@ -0,0 +1,47 @@
+package jpabook.jpashop.domain;
+
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/*
+회원별, 주문일별 주문 건수 / 금액 요약 (jpashop.order-summary.enabled 일 때만 사용)
+주문, 취소할 때마다 OrderSummaryService 가 같이 갱신해서 대시보드는 order_item 을 읽지 않고 이 테이블만 더한다.
+금액은 주문 시점의 주문상품 가격 * 수량 합계 (Order.getTotalPrice)
+ */
+@Entity
+@Table(name = "order_summary", indexes = @Index(name = "idx_order_summary_day", columnList = "order_day"))
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class OrderSummary {
+
+    @EmbeddedId
+    private OrderSummaryId id;
+
+    private long orderCount; // ORDER 상태 주문 수
+    private long orderAmount;
+    private long cancelCount; // CANCEL 상태 주문 수
+    private long cancelAmount;
+
+    public OrderSummary(OrderSummaryId id) {
+        this.id = id;
+    }
+
+    // 비즈니스 로직
+    public void addOrder(long amount) {
+        orderCount++;
+        orderAmount += amount;
+    }
+
+    // 주문 -> 취소로 옮긴다.
+    public void cancelOrder(long amount) {
+        orderCount--;
+        orderAmount -= amount;
+        cancelCount++;
+        cancelAmount += amount;
+    }
+}
@@ -0,0 +1,29 @@
+package jpabook.jpashop.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+// 주문 요약 key -> 회원 + 주문일
+@Embeddable
+@Getter
+@EqualsAndHashCode
+public class OrderSummaryId implements Serializable {
+
+    @Column(name = "member_id")
+    private Long memberId;
+
+    @Column(name = "order_day")
+    private LocalDate orderDay;
+
+    protected OrderSummaryId() {}
+
+    public OrderSummaryId(Long memberId, LocalDate orderDay) {
+        this.memberId = memberId;
+        this.orderDay = orderDay;
+    }
+}
@@ -0,0 +1,51 @@
+package jpabook.jpashop.domain;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+/*
+주문 목록 조회 전용 테이블 (읽기 모델)
+주문 + 회원 + 배송 + 주문상품 + 상품을 주문상품 1건당 한 줄로 미리 펼쳐둔 것 -> OrderQueryDto 모양 그대로
+조회는 조인 없이 이 테이블만 읽는다.
+
+직접 저장하지 않고 OrderViewRepository 가 원본 테이블에서 insert ... select 로 다시 채운다. (OrderViewProjector 참고)
+ */
+@Entity
+@Immutable
+@Table(name = "order_view", indexes = {
+        @Index(name = "idx_order_view_order", columnList = "order_id, order_item_id"),
+        @Index(name = "idx_order_view_member", columnList = "member_id, order_id")
+})
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class OrderView {
+
+    @Id
+    @Column(name = "order_item_id")
+    private Long orderItemId;
+
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(name = "member_id")
+    private Long memberId;
+
+    private String memberName;
+
+    private LocalDateTime orderDate;
+
+    @Enumerated(EnumType.STRING)
+    private OrderStatus status;
+
+    @Embedded
+    private Address address; // 배송지
+
+    private String itemName;
+    private int orderPrice;
+    private int count;
+}
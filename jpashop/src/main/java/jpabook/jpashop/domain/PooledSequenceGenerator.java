@@ -0,0 +1,33 @@
+package jpabook.jpashop.domain;
+
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+// 엔티티 id 용 pooled 시퀀스. 시퀀스를 한번 부를 때 id 를 allocation size 개씩 받아두고 나눠줘서 insert 를 jdbc batch 로 묶을 수 있다.
+// allocation size 는 jpashop.sequence.allocation-size (JpashopApplication 이 hibernate 설정으로 넘긴다, DataSeeder 도 같은 값을 쓴다)
+// hibernate 6.4 는 @IdGeneratorType 으로 붙인 generator 의 configure 를 부르지 않아서 @GenericGenerator(type = ...) 로 붙인다.
+// data-jpa / querydsl 은 allocation size 를 설정으로 뺄 필요가 없어서 @SequenceGenerator(allocationSize = 50) 만 쓴다.
+public class PooledSequenceGenerator extends SequenceStyleGenerator {
+
+    public static final String ALLOCATION_SIZE = "jpashop.sequence.allocation_size"; // hibernate 설정 키
+    public static final int DEFAULT_ALLOCATION_SIZE = 50;
+
+    @Override
+    public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry) {
+        int allocationSize = ConfigurationHelper.getInt(ALLOCATION_SIZE,
+                serviceRegistry.requireService(ConfigurationService.class).getSettings(), DEFAULT_ALLOCATION_SIZE);
+        if (allocationSize < 1) {
+            throw new IllegalArgumentException(ALLOCATION_SIZE + " 는 1 이상이어야 합니다. " + allocationSize);
+        }
+        parameters.putIfAbsent(SEQUENCE_PARAM, parameters.getProperty(GENERATOR_NAME)); // 시퀀스 이름 = generator 이름
+        parameters.put(INCREMENT_PARAM, String.valueOf(allocationSize));
+        parameters.put(OPT_PARAM, StandardOptimizerDescriptor.POOLED.getExternalName());
+        super.configure(type, parameters, serviceRegistry);
+    }
+}
@@ -2,20 +2,28 @@ package jpabook.jpashop.domain.item;
 
 import jakarta.persistence.*;
 import jpabook.jpashop.domain.Category;
+import jpabook.jpashop.domain.PooledSequenceGenerator;
 import jpabook.jpashop.exception.NotEnoughStockException;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
 @Getter @Setter
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "item") // 주문할 때마다 조회하니까 2차 캐시, 재고가 바뀌면 캐시도 같이 갱신된다.
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE) // 상속 전략을 부모에 선언해야함.
 @DiscriminatorColumn(name = "dtype")
 public abstract class Item {
 
-    @Id @GeneratedValue
+    @Id
+    @GeneratedValue(generator = "item_seq")
+    @GenericGenerator(name = "item_seq", type = PooledSequenceGenerator.class)
     @Column(name = "item_id")
     private Long id;
 
@@ -23,6 +31,9 @@ public abstract class Item {
     private int price;
     private int stockQuantity;
 
+    @Version
+    private Long version; // 동시에 재고를 바꾸면 나중에 커밋하는 쪽이 OptimisticLockException -> OrderLockExecutor 가 재시도
+
     @ManyToMany(mappedBy = "items")
     private List<Category> categories = new ArrayList<>();
 
@@ -1,10 +1,12 @@
 package jpabook.jpashop.repository;
 
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
 import jpabook.jpashop.domain.item.Item;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -26,8 +28,29 @@ public class ItemRepository {
         return em.find(Item.class, id);
     }
 
+    // select ... for update, 트랜잭션이 끝날때까지 다른 주문은 이 상품 row 에서 대기 (2차 캐시는 거치지 않는다)
+    public Item findOneForUpdate(Long id) {
+        return em.find(Item.class, id, LockModeType.PESSIMISTIC_WRITE);
+    }
+
+    // 여러 상품을 in 쿼리 한번으로 조회
+    public List<Item> findAllById(Collection<Long> ids) {
+        return em.createQuery("select i from Item i where i.id in :ids", Item.class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+
+    // 여러 상품을 잠그고 조회, 항상 id 순서로 잠가야 서로 다른 주문끼리 데드락이 나지 않는다.
+    public List<Item> findAllByIdForUpdate(Collection<Long> ids) {
+        return em.createQuery("select i from Item i where i.id in :ids order by i.id", Item.class)
+                .setParameter("ids", ids)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+    }
+
     public List<Item> findAll() {
         return em.createQuery("select i from Item i", Item.class)
+                .setHint("org.hibernate.cacheable", true) // 쿼리 캐시, item 테이블이 바뀌면 자동으로 무효화
                 .getResultList();
     }
 }
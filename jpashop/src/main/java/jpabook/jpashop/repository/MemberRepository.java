@@ -1,8 +1,15 @@
 package jpabook.jpashop.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import jpabook.jpashop.domain.Member;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface MemberRepository  extends JpaRepository<Member, Long> {
@@ -10,4 +17,14 @@ public interface MemberRepository  extends JpaRepository<Member, Long> {
     // 이렇게만 작성하면 findBy* 이렇게 만들면 JPA 가 다음 JPQL 쿼리를 자동으로 만들어준다.
     // select m from Member m where m.name = ?
     List<Member> findByName(String name);
+
+    // 회원 row 잠금 (주문 요약 갱신을 회원 단위로 줄 세우기), 여러명이면 id 순서로 잠근다.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select m from Member m where m.id in :ids order by m.id")
+    List<Member> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    // 주문 폼을 띄울 때마다 호출되니까 쿼리 캐시 사용, member 테이블이 바뀌면 자동으로 무효화
+    @Override
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    List<Member> findAll();
 }
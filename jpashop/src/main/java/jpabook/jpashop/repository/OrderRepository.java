@@ -1,30 +1,23 @@
 package jpabook.jpashop.repository;
 
-import com.querydsl.core.types.dsl.BooleanExpression;
-import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.annotation.PostConstruct;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.TypedQuery;
-import jakarta.persistence.criteria.*;
-import jpabook.jpashop.domain.*;
 import jpabook.jpashop.domain.Order;
 import org.springframework.stereotype.Repository;
-import org.springframework.util.StringUtils;
 
-import java.util.ArrayList;
 import java.util.List;
 
-import static jpabook.jpashop.domain.QOrder.*;
-import static jpabook.jpashop.domain.QMember.*;
-
 @Repository
 public class OrderRepository {
 
+    private static final int SEARCH_LIMIT = 1000; // 검색 결과 최대 1000건
+
     private final EntityManager em;
-    private final JPAQueryFactory query;
 
     public OrderRepository(EntityManager em) {
         this.em = em;
-        this.query = new JPAQueryFactory(em);
     }
 
     public void save(Order order){
@@ -35,86 +28,34 @@ public class OrderRepository {
         return em.find(Order.class, id);
     }
 
-    // 동적 쿼리를 Querydsl로 처리 하면 매우 쉽다.
-    public List<Order> findAllByString(OrderSearch orderSearch) {
-        //language=JPAQL
-        String jpql = "select o From Order o join o.member m";
-        boolean isFirstCondition = true;
-        //주문 상태 검색
-        if (orderSearch.getOrderStatus() != null) {
-            if (isFirstCondition) {
-                jpql += " where";
-                isFirstCondition = false;
-            } else {
-                jpql += " and";
-            }
-            jpql += " o.status = :status";
-        }
-        //회원 이름 검색
-        if (StringUtils.hasText(orderSearch.getMemberName())) {
-            if (isFirstCondition) {
-                jpql += " where";
-                isFirstCondition = false;
-            } else {
-                jpql += " and";
+    // 검색 모양(OrderSearchShape)별 JPQL 을 애플리케이션 시작할 때 한번만 파싱해서 named query 로 등록
+    @PostConstruct
+    void registerSearchQueries() {
+        EntityManagerFactory emf = em.getEntityManagerFactory();
+        EntityManager registerEm = emf.createEntityManager();
+        try {
+            for (OrderSearchShape shape : OrderSearchShape.values()) {
+                emf.addNamedQuery(shape.queryName(), registerEm.createQuery(shape.getJpql(), Order.class));
             }
-            jpql += " m.name like :name";
-        }
-        TypedQuery<Order> query = em.createQuery(jpql, Order.class)
-                .setMaxResults(1000); //최대 1000건
-        if (orderSearch.getOrderStatus() != null) {
-            query = query.setParameter("status", orderSearch.getOrderStatus());
+        } finally {
+            registerEm.close();
         }
-        if (StringUtils.hasText(orderSearch.getMemberName())) {
-            query = query.setParameter("name", orderSearch.getMemberName());
-        }
-        return query.getResultList();
     }
 
-    public List<Order> findAllByCriteria(OrderSearch orderSearch) {
-        CriteriaBuilder cb = em.getCriteriaBuilder();
-        CriteriaQuery<Order> cq = cb.createQuery(Order.class);
-        Root<Order> o = cq.from(Order.class);
-        Join<Order, Member> m = o.join("member", JoinType.INNER); //회원과 조인
-        List<Predicate> criteria = new ArrayList<>();
-        //주문 상태 검색
-        if (orderSearch.getOrderStatus() != null) {
-            Predicate status = cb.equal(o.get("status"),
-                    orderSearch.getOrderStatus());
-            criteria.add(status);
+    // 주문 검색 -> 미리 등록된 named query 를 꺼내서 파라미터만 바인딩
+    public List<Order> findAll(OrderSearch orderSearch) {
+        OrderSearchShape shape = OrderSearchShape.of(orderSearch);
+        TypedQuery<Order> query = em.createNamedQuery(shape.queryName(), Order.class)
+                .setMaxResults(SEARCH_LIMIT);
+        if (shape.hasStatus()) {
+            query.setParameter("status", orderSearch.getOrderStatus());
         }
-        //회원 이름 검색
-        if (StringUtils.hasText(orderSearch.getMemberName())) {
-            Predicate name =
-                    cb.like(m.<String>get("name"), "%" + orderSearch.getMemberName()
-                            + "%");
-            criteria.add(name);
+        if (shape.hasName()) {
+            query.setParameter("name", OrderSearchShape.prefixPattern(orderSearch.getMemberName()));
         }
-        cq.where(cb.and(criteria.toArray(new Predicate[criteria.size()])));
-        TypedQuery<Order> query = em.createQuery(cq).setMaxResults(1000); //최대 1000건
         return query.getResultList();
     }
 
-    public List<Order> findAll(OrderSearch orderSearch) {
-        return query
-                .select(order)
-                .from(order)
-                .join(order.member, member)
-                .where(statusEq(orderSearch.getOrderStatus()), nameLike(orderSearch.getMemberName()))
-                .limit(1000)
-                .fetch();
-    }
-
-    private BooleanExpression nameLike(String memberName) {
-        if (!StringUtils.hasText(memberName)) return null;
-        return QMember.member.name.like(memberName);
-    }
-
-    private BooleanExpression statusEq(OrderStatus statusCond) {
-        if (statusCond == null) return null;
-        return QOrder.order.status.eq(statusCond);
-    }
-
     public List<Order> findAllWithMemberDelivery() {
         // select 할 때 order, member, delivery 를 한번에 join 하고 select 에 한번에 값을 다 채워서 다가져오는 방식
         return em.createQuery(
@@ -150,4 +91,27 @@ public class OrderRepository {
                 .setMaxResults(limit)
                 .getResultList();
     }
+
+    // offset 방식은 앞에 있는 row 를 전부 읽고 버리기 때문에 뒤 페이지로 갈수록 느려진다.
+    // keyset 방식은 마지막으로 본 (orderDate, id) 이후부터 인덱스를 타고 바로 찾아가기 때문에 몇번째 페이지든 속도가 같다.
+    // 컬렉션(orderItems)은 여전히 default_batch_fetch_size 로 in 쿼리 조회
+    public List<Order> findAllWithMemberDelivery(OrderCursor cursor, int limit) {
+        String jpql = "SELECT o " +
+                "FROM Order o " +
+                "JOIN FETCH o.member m " +
+                "JOIN FETCH o.delivery d";
+        if (cursor != null) {
+            jpql += " WHERE o.orderDate > :orderDate" +
+                    " OR (o.orderDate = :orderDate AND o.id > :orderId)";
+        }
+        jpql += " ORDER BY o.orderDate, o.id";
+
+        TypedQuery<Order> query = em.createQuery(jpql, Order.class)
+                .setMaxResults(limit);
+        if (cursor != null) {
+            query.setParameter("orderDate", cursor.getOrderDate())
+                    .setParameter("orderId", cursor.getOrderId());
+        }
+        return query.getResultList();
+    }
 }
@@ -0,0 +1,64 @@
+package jpabook.jpashop.repository;
+
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+OrderSearch 에 어떤 조건이 들어있는지 (검색 모양)
+조건 값만 다르고 모양이 같으면 JPQL 도 항상 똑같으니까, 모양별로 JPQL 을 한번만 만들어 named query 로 등록해두고
+요청마다 파라미터만 바인딩한다. -> 매번 쿼리 문자열이나 Criteria / Querydsl 트리를 다시 만들고 파싱하지 않음
+ */
+enum OrderSearchShape {
+
+    ALL(false, false),
+    STATUS(true, false),
+    NAME(false, true),
+    STATUS_AND_NAME(true, true);
+
+    private final boolean hasStatus;
+    private final boolean hasName;
+    private final String jpql;
+
+    OrderSearchShape(boolean hasStatus, boolean hasName) {
+        this.hasStatus = hasStatus;
+        this.hasName = hasName;
+
+        List<String> conditions = new ArrayList<>();
+        if (hasStatus) conditions.add("o.status = :status");
+        if (hasName) conditions.add("m.name like :name escape '!'"); // 이름 앞부분 검색, idx_member_name 사용
+        this.jpql = "select o from Order o join o.member m"
+                + (conditions.isEmpty() ? "" : " where " + String.join(" and ", conditions));
+    }
+
+    static OrderSearchShape of(OrderSearch orderSearch) {
+        boolean status = orderSearch.getOrderStatus() != null;
+        boolean name = StringUtils.hasText(orderSearch.getMemberName());
+        if (status && name) return STATUS_AND_NAME;
+        if (status) return STATUS;
+        if (name) return NAME;
+        return ALL;
+    }
+
+    // 'kim' -> 'kim%', 사용자가 입력한 %, _ 는 와일드카드가 아니라 글자로 검색되게 escape
+    static String prefixPattern(String name) {
+        return name.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+    }
+
+    boolean hasStatus() {
+        return hasStatus;
+    }
+
+    boolean hasName() {
+        return hasName;
+    }
+
+    String getJpql() {
+        return jpql;
+    }
+
+    String queryName() {
+        return "Order.search." + name();
+    }
+}
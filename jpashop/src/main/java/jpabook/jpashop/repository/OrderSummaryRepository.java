@@ -0,0 +1,41 @@
+package jpabook.jpashop.repository;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.OrderSummary;
+import jpabook.jpashop.domain.OrderSummaryId;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+@Repository
+@RequiredArgsConstructor
+public class OrderSummaryRepository {
+
+    private final EntityManager em;
+
+    public void save(OrderSummary summary) {
+        em.persist(summary);
+    }
+
+    public OrderSummary findOne(OrderSummaryId id) {
+        return em.find(OrderSummary.class, id);
+    }
+
+    // 요약 테이블을 주문 / 주문상품에서 다시 계산 (SQL 로 직접 넣은 데이터가 있을 때, 예: seed)
+    // 그 사이에 들어온 주문은 반영되지 않을 수 있으니 주문이 없을 때 실행
+    public int rebuild() {
+        em.createQuery("DELETE FROM OrderSummary").executeUpdate();
+        return em.createNativeQuery(
+                        "insert into order_summary (member_id, order_day, order_count, order_amount, cancel_count, cancel_amount)" +
+                                " select t.member_id, t.order_day," +
+                                " sum(case when t.status = 'ORDER' then 1 else 0 end)," +
+                                " sum(case when t.status = 'ORDER' then t.amount else 0 end)," +
+                                " sum(case when t.status = 'CANCEL' then 1 else 0 end)," +
+                                " sum(case when t.status = 'CANCEL' then t.amount else 0 end)" +
+                                " from (select o.member_id, cast(o.order_date as date) order_day, o.status," +
+                                "       sum(cast(oi.order_price as bigint) * oi.count) amount" +
+                                "       from orders o join order_item oi on oi.order_id = o.order_id" +
+                                "       group by o.order_id, o.member_id, o.order_date, o.status) t" +
+                                " group by t.member_id, t.order_day")
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,24 @@
+package jpabook.jpashop.repository.order.query;
+
+import lombok.Data;
+
+// 회원별 주문 / 취소 건수와 금액
+@Data
+public class MemberOrderSummaryDto {
+
+    private Long memberId;
+    private String name;
+    private long orderCount;
+    private long orderAmount;
+    private long cancelCount;
+    private long cancelAmount;
+
+    public MemberOrderSummaryDto(Long memberId, String name, Long orderCount, Long orderAmount, Long cancelCount, Long cancelAmount) {
+        this.memberId = memberId;
+        this.name = name;
+        this.orderCount = orderCount;
+        this.orderAmount = orderAmount;
+        this.cancelCount = cancelCount;
+        this.cancelAmount = cancelAmount;
+    }
+}
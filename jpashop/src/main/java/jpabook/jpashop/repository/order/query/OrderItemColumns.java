@@ -0,0 +1,145 @@
+package jpabook.jpashop.repository.order.query;
+
+import lombok.Getter;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+주문상품 row 를 row 마다 DTO 객체로 만들지 않고 컬럼별 primitive 배열로 담는 결과 (분석용 대량 조회)
+i 번째 주문상품 = orderIds[i], itemNames[itemNameIds[i]], orderPrices[i], counts[i]
+상품 이름은 같은 값이 계속 반복되니까 사전(itemNames) 에 한번만 넣고 row 에는 사전 번호만 저장한다.
+
+JSON 으로 내보내면 배열 그대로 나간다. {"size":2,"orderIds":[1,1],"itemNameIds":[0,1],...,"itemNames":["JPA1 BOOK","JPA2 BOOK"]}
+바이너리 포맷 (big endian, DataOutputStream)
+  int size, int 사전 크기, 사전 크기만큼 (int 바이트 길이 + UTF-8 바이트, null 이면 길이 -1)
+  (writeUTF 는 null 을 못 쓰고 65535 바이트가 넘는 문자열은 UTFDataFormatException)
+  long orderIds[size], int itemNameIds[size], int orderPrices[size], int counts[size]
+ */
+@Getter
+public class OrderItemColumns {
+
+    private final int size;
+    private final long[] orderIds;
+    private final int[] itemNameIds;
+    private final int[] orderPrices;
+    private final int[] counts;
+    private final List<String> itemNames;
+
+    private OrderItemColumns(int size, long[] orderIds, int[] itemNameIds, int[] orderPrices, int[] counts, List<String> itemNames) {
+        this.size = size;
+        this.orderIds = orderIds;
+        this.itemNameIds = itemNameIds;
+        this.orderPrices = orderPrices;
+        this.counts = counts;
+        this.itemNames = itemNames;
+    }
+
+    public void writeBinary(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, 64 * 1024));
+        data.writeInt(size);
+        data.writeInt(itemNames.size());
+        for (String itemName : itemNames) {
+            writeString(data, itemName);
+        }
+        for (int i = 0; i < size; i++) data.writeLong(orderIds[i]);
+        for (int i = 0; i < size; i++) data.writeInt(itemNameIds[i]);
+        for (int i = 0; i < size; i++) data.writeInt(orderPrices[i]);
+        for (int i = 0; i < size; i++) data.writeInt(counts[i]);
+        data.flush();
+    }
+
+    public static OrderItemColumns readBinary(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in, 64 * 1024));
+        int size = data.readInt();
+        int dictionarySize = data.readInt();
+        List<String> itemNames = new ArrayList<>(dictionarySize);
+        for (int i = 0; i < dictionarySize; i++) {
+            itemNames.add(readString(data));
+        }
+        long[] orderIds = new long[size];
+        int[] itemNameIds = new int[size];
+        int[] orderPrices = new int[size];
+        int[] counts = new int[size];
+        for (int i = 0; i < size; i++) orderIds[i] = data.readLong();
+        for (int i = 0; i < size; i++) itemNameIds[i] = data.readInt();
+        for (int i = 0; i < size; i++) orderPrices[i] = data.readInt();
+        for (int i = 0; i < size; i++) counts[i] = data.readInt();
+        return new OrderItemColumns(size, orderIds, itemNameIds, orderPrices, counts, Collections.unmodifiableList(itemNames));
+    }
+
+    private static void writeString(DataOutputStream data, String value) throws IOException {
+        if (value == null) {
+            data.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        data.writeInt(bytes.length);
+        data.write(bytes);
+    }
+
+    private static String readString(DataInputStream data) throws IOException {
+        int length = data.readInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        data.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // ResultSet 을 읽으면서 한줄씩 추가, 배열이 꽉 차면 2배로 늘린다.
+    public static class Builder {
+
+        private int size;
+        private long[] orderIds;
+        private int[] itemNameIds;
+        private int[] orderPrices;
+        private int[] counts;
+        private final Map<String, Integer> dictionary = new HashMap<>();
+        private final List<String> itemNames = new ArrayList<>();
+
+        public Builder(int initialCapacity) {
+            int capacity = Math.max(16, initialCapacity);
+            orderIds = new long[capacity];
+            itemNameIds = new int[capacity];
+            orderPrices = new int[capacity];
+            counts = new int[capacity];
+        }
+
+        public void add(long orderId, String itemName, int orderPrice, int count) {
+            if (size == orderIds.length) {
+                int capacity = size * 2;
+                orderIds = Arrays.copyOf(orderIds, capacity);
+                itemNameIds = Arrays.copyOf(itemNameIds, capacity);
+                orderPrices = Arrays.copyOf(orderPrices, capacity);
+                counts = Arrays.copyOf(counts, capacity);
+            }
+            Integer itemNameId = dictionary.get(itemName);
+            if (itemNameId == null) {
+                itemNameId = itemNames.size();
+                dictionary.put(itemName, itemNameId);
+                itemNames.add(itemName);
+            }
+            orderIds[size] = orderId;
+            itemNameIds[size] = itemNameId;
+            orderPrices[size] = orderPrice;
+            counts[size] = count;
+            size++;
+        }
+
+        // JSON 으로 그대로 내보낼 수 있게 배열 길이를 size 에 맞춘다.
+        public OrderItemColumns build() {
+            return new OrderItemColumns(size,
+                    Arrays.copyOf(orderIds, size),
+                    Arrays.copyOf(itemNameIds, size),
+                    Arrays.copyOf(orderPrices, size),
+                    Arrays.copyOf(counts, size),
+                    Collections.unmodifiableList(new ArrayList<>(itemNames))); // List.copyOf 는 null 이름을 못 담는다.
+        }
+    }
+}
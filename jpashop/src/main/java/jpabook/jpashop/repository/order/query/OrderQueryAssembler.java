@@ -0,0 +1,60 @@
+package jpabook.jpashop.repository.order.query;
+
+import jpabook.jpashop.repository.support.LongIntIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+주문 / 주문상품 조회 결과를 OrderQueryDto 로 조립 (v5, v6)
+Collectors.groupingBy 로 HashMap<Long, List<..>> 을 만들면 row 마다 Long 박싱 + Entry + 그룹 key 객체가 생기니까
+orderId -> 결과 List 위치를 LongIntIndex 에 저장해두고 그 위치의 주문에 바로 붙인다.
+ */
+public final class OrderQueryAssembler {
+
+    private OrderQueryAssembler() {
+    }
+
+    // v5 : 주문 목록에 주문상품 목록을 붙인다. 주문마다 주문상품 개수를 먼저 세서 List 크기를 딱 맞춰 만든다.
+    public static void attachItems(List<OrderQueryDto> orders, List<OrderItemQueryDto> orderItems) {
+        LongIntIndex index = new LongIntIndex(orders.size());
+        for (int i = 0; i < orders.size(); i++) {
+            index.put(orders.get(i).getOrderId(), i);
+        }
+
+        int[] positions = new int[orderItems.size()];
+        int[] counts = new int[orders.size()];
+        for (int i = 0; i < orderItems.size(); i++) {
+            int position = index.get(orderItems.get(i).getOrderId());
+            positions[i] = position;
+            if (position != LongIntIndex.MISSING) counts[position]++;
+        }
+
+        for (int i = 0; i < orders.size(); i++) {
+            orders.get(i).setOrderItems(new ArrayList<>(counts[i]));
+        }
+        for (int i = 0; i < orderItems.size(); i++) {
+            if (positions[i] != LongIntIndex.MISSING) {
+                orders.get(positions[i]).getOrderItems().add(orderItems.get(i));
+            }
+        }
+    }
+
+    // v6 : 주문 * 주문상품 flat row 를 주문 단위로 묶는다. (정렬되어 있지 않아도 됨, 처음 나온 주문 순서)
+    public static List<OrderQueryDto> groupFlat(List<OrderFlatDto> flats) {
+        LongIntIndex index = new LongIntIndex(flats.size());
+        List<OrderQueryDto> result = new ArrayList<>();
+        for (OrderFlatDto row : flats) {
+            int position = index.get(row.getOrderId());
+            if (position == LongIntIndex.MISSING) {
+                position = result.size();
+                index.put(row.getOrderId(), position);
+                result.add(new OrderQueryDto(row.getOrderId(), row.getName(), row.getOrderDate(),
+                        row.getOrderStatus(), row.getAddress(), new ArrayList<>()));
+            }
+            result.get(position).getOrderItems()
+                    .add(new OrderItemQueryDto(row.getOrderId(), row.getItemName(), row.getOrderPrice(), row.getCount()));
+        }
+        return result;
+    }
+}
@@ -1,40 +1,45 @@
 package jpabook.jpashop.repository.order.query;
 
 import jakarta.persistence.EntityManager;
+import jpabook.jpashop.repository.support.BatchLoader;
+import jpabook.jpashop.repository.support.BatchLoaderFactory;
+import jpabook.jpashop.repository.support.ShardedQueryExecutor;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Repository
 @RequiredArgsConstructor
 public class OrderQueryRepository {
 
+    private static final int STREAM_FETCH_SIZE = 500;
+
     private final EntityManager em;
+    private final BatchLoaderFactory batchLoaderFactory;
+    private final ShardedQueryExecutor shardedQueryExecutor;
 
     // 먼저 To One 관계에 있는 값을 다 채운 당므에 각 컬렉션들은 별도의 메소드를 사용해서 조회
-    // 이 방식 또한 1 + N 문제가 터지기 때문에 최적화가 필요하다.
+    // 원래는 주문마다 findOrderItems(orderId) 를 호출해서 1 + N 문제가 터졌지만,
+    // 이제는 배치 로더에 orderId 만 등록해두고 dispatch 할 때 in 쿼리로 한번에 가져온다. -> 1 + ceil(N / chunkSize) 번
     public List<OrderQueryDto> findOrderQueryDtos() {
         List<OrderQueryDto> result = findOrders(); // 1번
-        result.forEach(o -> { // N번
-            List<OrderItemQueryDto> orderItems = findOrderItems(o.getOrderId()); // N번
-            o.setOrderItems(orderItems);
-        });
+        BatchLoader<Long, OrderItemQueryDto> orderItemLoader = batchLoaderFactory.create(this::findOrderItemMap);
+        result.forEach(o -> orderItemLoader.load(o.getOrderId(), o::setOrderItems)); // 여기서는 쿼리가 나가지 않음
+        orderItemLoader.dispatch(); // chunk 개수만큼
         return result;
     }
 
-    private List<OrderItemQueryDto> findOrderItems(Long orderId) {
-        return em.createQuery(
-                "SELECT new jpabook.jpashop.repository.order.query.OrderItemQueryDto(oi.order.id, i.name, oi.orderPrice, oi.count)" +
-                        " FROM OrderItem oi" +
-                        " JOIN oi.item i" +
-                        " WHERE oi.order.id = :orderId ", OrderItemQueryDto.class)
-                .setParameter("orderId", orderId)
-                .getResultList();
-    }
-
     private List<OrderQueryDto> findOrders() {
         return em.createQuery(
                 "SELECT new jpabook.jpashop.repository.order.query.OrderQueryDto(o.id, m.name, o.orderDate, o.status, d.address)" +
@@ -49,27 +54,32 @@ public class OrderQueryRepository {
         List<OrderQueryDto> result = findOrders();
         // 주분 id 번호 가져오고
         // 관련된 ITEM 을 한번에 다 가져오기
-        Map<Long, List<OrderItemQueryDto>> orderItemMap = findOrderItemMap(toOrderIds(result));
+        // 주문이 많으면 id 를 shard 로 나눠서 여러 커넥션에서 동시에 조회 (shard 가 1개면 지금처럼 쿼리 1번)
+        List<OrderItemQueryDto> orderItems = shardedQueryExecutor.query(toOrderIds(result), this::findOrderItems);
         // loop 를 도는 것은 같지만 이제는 loop 안에서 쿼리가 나가지 않는다는 장점이 있다. 즉 메모리에서 매칭
-        // 이렇게 하면 쿼리가 2번 나간다.
-        result.forEach(o -> o.setOrderItems(orderItemMap.get(o.getOrderId())));
+        // 이렇게 하면 쿼리가 2번 나간다. 매칭은 Map<Long, List> 대신 orderId -> 위치 인덱스로 (OrderQueryAssembler)
+        OrderQueryAssembler.attachItems(result, orderItems);
 
         return result;
     }
 
     private Map<Long, List<OrderItemQueryDto>> findOrderItemMap(List<Long> orderIds) {
-        List<OrderItemQueryDto> orderItems = em.createQuery(
+        List<OrderItemQueryDto> orderItems = findOrderItems(orderIds);
+
+        // key 가 orderId 이고 value 가 그에 대한 값인 map 을 생성
+        Map<Long, List<OrderItemQueryDto>> orderItemMap = orderItems.stream()
+                .collect(Collectors.groupingBy(OrderItemQueryDto::getOrderId));
+        return orderItemMap;
+    }
+
+    private List<OrderItemQueryDto> findOrderItems(List<Long> orderIds) {
+        return em.createQuery(
                 "SELECT new jpabook.jpashop.repository.order.query.OrderItemQueryDto(oi.order.id, i.name, oi.orderPrice, oi.count)" +
                         " FROM OrderItem oi" +
                         " JOIN oi.item i" +
                         " WHERE oi.order.id in :orderIds ", OrderItemQueryDto.class) // 여기서 동등 비교가 아닌 in 으로 바꾼것이 가장 큰 차이점
                 .setParameter("orderIds", orderIds)
                 .getResultList();
-
-        // key 가 orderId 이고 value 가 그에 대한 값인 map 을 생성
-        Map<Long, List<OrderItemQueryDto>> orderItemMap = orderItems.stream()
-                .collect(Collectors.groupingBy(OrderItemQueryDto::getOrderId));
-        return orderItemMap;
     }
 
     private static List<Long> toOrderIds(List<OrderQueryDto> result) {
@@ -91,4 +101,93 @@ public class OrderQueryRepository {
                 OrderFlatDto.class
         ).getResultList();
     }
+
+    // v6 를 List 로 다 올리지 않고 커서로 한줄씩 읽으면서 바로 내보내는 버전
+    // ORDER BY o.id 로 같은 주문의 row 가 붙어서 나오기 때문에, orderId 가 바뀌는 순간 이전 주문이 완성된 것
+    // 메모리에는 현재 조립 중인 주문 1건만 남기 때문에 주문이 아무리 많아도 힙 사용량이 일정하다.
+    @Transactional(readOnly = true) // 스트림을 다 읽을 때까지 커넥션을 잡고 있어야 한다.
+    public void streamAllByDto_flat(Consumer<OrderQueryDto> consumer) {
+        try (Stream<OrderFlatDto> rows = em.createQuery(
+                        "SELECT new" +
+                                " jpabook.jpashop.repository.order.query.OrderFlatDto(o.id, m.name, o.orderDate, o.status, d.address, i.name, oi.orderPrice, oi.count)" +
+                                " FROM Order o" +
+                                " JOIN o.member m" +
+                                " JOIN o.delivery d" +
+                                " JOIN o.orderItems oi" +
+                                " JOIN oi.item i" +
+                                " ORDER BY o.id",
+                        OrderFlatDto.class)
+                .setHint("org.hibernate.fetchSize", STREAM_FETCH_SIZE) // jdbc fetch size 만큼만 끊어서 가져온다.
+                .setHint("org.hibernate.readOnly", true)
+                .getResultStream()) {
+            groupByOrderId(rows.iterator(), consumer);
+        }
+    }
+
+    // 주문상품 전체를 컬럼별 배열로 (분석용 대량 조회)
+    // JPQL new 생성자 대신 ResultSet 에서 바로 primitive 배열에 채워서 row 마다 DTO 객체를 만들지 않는다.
+    @Transactional(readOnly = true)
+    public OrderItemColumns findAllOrderItemColumns() {
+        return em.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "select oi.order_id, i.name, oi.order_price, oi.count" +
+                            " from order_item oi" +
+                            " join item i on i.item_id = oi.item_id" +
+                            " order by oi.order_id, oi.order_item_id")) {
+                statement.setFetchSize(STREAM_FETCH_SIZE);
+                try (ResultSet rs = statement.executeQuery()) {
+                    OrderItemColumns.Builder columns = new OrderItemColumns.Builder(STREAM_FETCH_SIZE);
+                    while (rs.next()) {
+                        columns.add(rs.getLong(1), rs.getString(2), rs.getInt(3), rs.getInt(4));
+                    }
+                    return columns.build();
+                }
+            }
+        });
+    }
+
+    // v6 에 페이징을 붙인 버전
+    // 1. 주문 id 만 먼저 페이징 -> 1:N 조인 전이라 row 뻥튀기가 없으니 페이지 경계가 정확하다.
+    // 2. 그 id 들에 대해서만 flat 조인 -> 페이지당 쿼리 2번
+    public List<OrderQueryDto> findAllByDto_flat(int offset, int limit) {
+        List<Long> orderIds = em.createQuery(
+                        "SELECT o.id FROM Order o ORDER BY o.id", Long.class)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+        if (orderIds.isEmpty()) return new ArrayList<>();
+
+        List<OrderFlatDto> flats = em.createQuery(
+                "SELECT new" +
+                        " jpabook.jpashop.repository.order.query.OrderFlatDto(o.id, m.name, o.orderDate, o.status, d.address, i.name, oi.orderPrice, oi.count)" +
+                        " FROM Order o" +
+                        " JOIN o.member m" +
+                        " JOIN o.delivery d" +
+                        " JOIN o.orderItems oi" +
+                        " JOIN oi.item i" +
+                        " WHERE o.id in :orderIds" +
+                        " ORDER BY o.id",
+                OrderFlatDto.class)
+                .setParameter("orderIds", orderIds)
+                .getResultList();
+
+        List<OrderQueryDto> result = new ArrayList<>(orderIds.size());
+        groupByOrderId(flats.iterator(), result::add);
+        return result;
+    }
+
+    // orderId 순으로 정렬된 flat row 를 주문 단위로 묶어서 넘겨준다.
+    // 정렬이 되어 있으니 Map 없이 orderId 가 바뀌는 순간만 보면 된다.
+    private static void groupByOrderId(Iterator<OrderFlatDto> rows, Consumer<OrderQueryDto> consumer) {
+        OrderQueryDto current = null;
+        while (rows.hasNext()) {
+            OrderFlatDto row = rows.next();
+            if (current == null || !current.getOrderId().equals(row.getOrderId())) {
+                if (current != null) consumer.accept(current);
+                current = new OrderQueryDto(row.getOrderId(), row.getName(), row.getOrderDate(), row.getOrderStatus(), row.getAddress(), new ArrayList<>());
+            }
+            current.getOrderItems().add(new OrderItemQueryDto(row.getOrderId(), row.getItemName(), row.getOrderPrice(), row.getCount()));
+        }
+        if (current != null) consumer.accept(current);
+    }
 }
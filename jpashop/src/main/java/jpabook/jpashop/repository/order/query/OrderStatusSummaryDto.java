@@ -0,0 +1,19 @@
+package jpabook.jpashop.repository.order.query;
+
+import jpabook.jpashop.domain.OrderStatus;
+import lombok.Data;
+
+// 주문 상태별 건수와 금액
+@Data
+public class OrderStatusSummaryDto {
+
+    private OrderStatus orderStatus;
+    private long orderCount;
+    private long amount;
+
+    public OrderStatusSummaryDto(OrderStatus orderStatus, Long orderCount, Long amount) {
+        this.orderStatus = orderStatus;
+        this.orderCount = orderCount;
+        this.amount = amount;
+    }
+}
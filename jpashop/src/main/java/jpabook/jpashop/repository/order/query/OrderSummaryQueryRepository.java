@@ -0,0 +1,134 @@
+package jpabook.jpashop.repository.order.query;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jpabook.jpashop.domain.OrderStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+주문 합계 / 건수를 엔티티를 올려서 Order.getTotalPrice() 로 더하지 않고 DB 의 GROUP BY 한번으로 계산
+기간은 orderDate 기준 [from, to) -> idx_orders_order_date_id 로 범위 조회
+
+OrderSummary 요약 테이블을 쓰는 버전 (...FromSummary) 은 order_item 을 읽지 않는다. 대신 기간은 일 단위
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderSummaryQueryRepository {
+
+    private final EntityManager em;
+
+    // 주문별 합계
+    public List<OrderTotalDto> findOrderTotals(LocalDateTime from, LocalDateTime to, int offset, int limit) {
+        return em.createQuery(
+                        "SELECT new jpabook.jpashop.repository.order.query.OrderTotalDto(" +
+                                "o.id, o.member.id, o.orderDate, o.status, sum(oi.count), sum(oi.orderPrice * oi.count))" +
+                                " FROM Order o" +
+                                " JOIN o.orderItems oi" +
+                                " WHERE o.orderDate >= :from AND o.orderDate < :to" +
+                                " GROUP BY o.id, o.member.id, o.orderDate, o.status" +
+                                " ORDER BY o.orderDate, o.id",
+                        OrderTotalDto.class)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    // 회원별 합계 -> 회원 + 상태로 묶어서 한번에 가져오고 (회원당 최대 2줄) 메모리에서 한 줄로 합친다.
+    public List<MemberOrderSummaryDto> findMemberSummaries(LocalDateTime from, LocalDateTime to) {
+        List<Tuple> rows = em.createQuery(
+                        "SELECT m.id, m.name, o.status, count(distinct o.id), sum(oi.orderPrice * oi.count)" +
+                                " FROM Order o" +
+                                " JOIN o.member m" +
+                                " JOIN o.orderItems oi" +
+                                " WHERE o.orderDate >= :from AND o.orderDate < :to" +
+                                " GROUP BY m.id, m.name, o.status" +
+                                " ORDER BY m.id",
+                        Tuple.class)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .getResultList();
+
+        Map<Long, MemberOrderSummaryDto> result = new LinkedHashMap<>();
+        for (Tuple row : rows) {
+            MemberOrderSummaryDto summary = result.computeIfAbsent(row.get(0, Long.class),
+                    memberId -> new MemberOrderSummaryDto(memberId, row.get(1, String.class), 0L, 0L, 0L, 0L));
+            long count = row.get(3, Long.class);
+            long amount = row.get(4, Long.class);
+            if (row.get(2, OrderStatus.class) == OrderStatus.CANCEL) {
+                summary.setCancelCount(count);
+                summary.setCancelAmount(amount);
+            } else {
+                summary.setOrderCount(count);
+                summary.setOrderAmount(amount);
+            }
+        }
+        return new ArrayList<>(result.values());
+    }
+
+    // 상태별 합계
+    public List<OrderStatusSummaryDto> findStatusSummaries(LocalDateTime from, LocalDateTime to) {
+        return em.createQuery(
+                        "SELECT new jpabook.jpashop.repository.order.query.OrderStatusSummaryDto(" +
+                                "o.status, count(distinct o.id), sum(oi.orderPrice * oi.count))" +
+                                " FROM Order o" +
+                                " JOIN o.orderItems oi" +
+                                " WHERE o.orderDate >= :from AND o.orderDate < :to" +
+                                " GROUP BY o.status",
+                        OrderStatusSummaryDto.class)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .getResultList().stream()
+                .sorted(Comparator.comparing(OrderStatusSummaryDto::getOrderStatus)) // enum 순서 (ORDER, CANCEL)
+                .toList();
+    }
+
+    // 회원별 합계 (요약 테이블), 기간은 [from, to] 일 단위
+    public List<MemberOrderSummaryDto> findMemberSummariesFromSummary(LocalDate from, LocalDate to) {
+        return em.createQuery(
+                        "SELECT new jpabook.jpashop.repository.order.query.MemberOrderSummaryDto(" +
+                                "m.id, m.name, sum(s.orderCount), sum(s.orderAmount), sum(s.cancelCount), sum(s.cancelAmount))" +
+                                " FROM OrderSummary s" +
+                                " JOIN Member m ON m.id = s.id.memberId" +
+                                " WHERE s.id.orderDay >= :from AND s.id.orderDay <= :to" +
+                                " GROUP BY m.id, m.name" +
+                                " ORDER BY m.id",
+                        MemberOrderSummaryDto.class)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .getResultList();
+    }
+
+    // 상태별 합계 (요약 테이블), 주문이 없는 상태는 빼서 GROUP BY 버전과 같은 모양으로
+    public List<OrderStatusSummaryDto> findStatusSummariesFromSummary(LocalDate from, LocalDate to) {
+        Tuple total = em.createQuery(
+                        "SELECT sum(s.orderCount), sum(s.orderAmount), sum(s.cancelCount), sum(s.cancelAmount)" +
+                                " FROM OrderSummary s" +
+                                " WHERE s.id.orderDay >= :from AND s.id.orderDay <= :to",
+                        Tuple.class)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .getSingleResult();
+
+        List<OrderStatusSummaryDto> result = new ArrayList<>();
+        Long orderCount = total.get(0, Long.class);
+        Long cancelCount = total.get(2, Long.class);
+        if (orderCount != null && orderCount > 0) {
+            result.add(new OrderStatusSummaryDto(OrderStatus.ORDER, orderCount, total.get(1, Long.class)));
+        }
+        if (cancelCount != null && cancelCount > 0) {
+            result.add(new OrderStatusSummaryDto(OrderStatus.CANCEL, cancelCount, total.get(3, Long.class)));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,27 @@
+package jpabook.jpashop.repository.order.query;
+
+import jpabook.jpashop.domain.OrderStatus;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// 주문별 합계 (Order.getTotalPrice 를 DB 에서 계산)
+@Data
+public class OrderTotalDto {
+
+    private Long orderId;
+    private Long memberId;
+    private LocalDateTime orderDate;
+    private OrderStatus orderStatus;
+    private long itemCount; // 주문상품 수량 합계
+    private long totalPrice;
+
+    public OrderTotalDto(Long orderId, Long memberId, LocalDateTime orderDate, OrderStatus orderStatus, Long itemCount, Long totalPrice) {
+        this.orderId = orderId;
+        this.memberId = memberId;
+        this.orderDate = orderDate;
+        this.orderStatus = orderStatus;
+        this.itemCount = itemCount;
+        this.totalPrice = totalPrice;
+    }
+}
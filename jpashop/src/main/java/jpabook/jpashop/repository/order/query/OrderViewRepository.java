@@ -0,0 +1,120 @@
+package jpabook.jpashop.repository.order.query;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import jpabook.jpashop.domain.OrderView;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.query.NativeQuery;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+/*
+order_view 읽기 모델 저장 / 조회
+갱신은 항상 원본 테이블을 다시 읽어서 해당 주문(회원) 의 row 를 통째로 바꾼다. -> 이벤트 순서가 바뀌어도 마지막 상태로 맞춰짐
+겹치는 갱신끼리는 관련 주문의 회원 row 만 잠가서 줄을 세운다. (먼저 시작한 갱신이 예전 상태를 나중에 덮어쓰지 않게)
+상품 row 는 주문 / 재고 차감이 잠그는 곳이라 잠그지 않는다. 상품 이름 갱신은 그 상품을 주문한 회원 row 들을 잠근다.
+여러 회원을 잠글 때는 항상 member_id 순서
+이벤트 리스너(커밋 이후) 에서 호출되니까 항상 새 트랜잭션
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderViewRepository {
+
+    private static final String INSERT_SELECT =
+            "insert into order_view (order_item_id, order_id, member_id, member_name, order_date, status," +
+                    " city, street, zipcode, item_name, order_price, count)" +
+                    " select oi.order_item_id, o.order_id, m.member_id, m.name, o.order_date, o.status," +
+                    " d.city, d.street, d.zipcode, i.name, oi.order_price, oi.count" +
+                    " from orders o" +
+                    " join member m on m.member_id = o.member_id" +
+                    " join delivery d on d.delivery_id = o.delivery_id" +
+                    " join order_item oi on oi.order_id = o.order_id" +
+                    " join item i on i.item_id = oi.item_id";
+
+    private final EntityManager em;
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void refreshOrders(Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) return;
+        em.createNativeQuery("select m.member_id from member m" +
+                        " where m.member_id in (select o.member_id from orders o where o.order_id in (:orderIds))" +
+                        " order by m.member_id for update")
+                .setParameter("orderIds", orderIds)
+                .getResultList();
+        update("delete from order_view where order_id in (:orderIds)")
+                .setParameter("orderIds", orderIds)
+                .executeUpdate();
+        update(INSERT_SELECT + " where o.order_id in (:orderIds)")
+                .setParameter("orderIds", orderIds)
+                .executeUpdate();
+    }
+
+    // 회원 이름이 바뀌면 그 회원의 주문 row 전부
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void refreshMember(Long memberId) {
+        em.createNativeQuery("select member_id from member where member_id = :memberId for update")
+                .setParameter("memberId", memberId)
+                .getResultList();
+        update("update order_view set member_name = (select m.name from member m where m.member_id = :memberId)" +
+                " where member_id = :memberId")
+                .setParameter("memberId", memberId)
+                .executeUpdate();
+    }
+
+    // 상품 이름이 바뀌면 그 상품을 담은 주문상품 row 전부 (order_view 에는 item_id 가 없어서 order_item 으로 찾는다)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void refreshItem(Long itemId) {
+        em.createNativeQuery("select m.member_id from member m" +
+                        " where m.member_id in (select o.member_id from orders o" +
+                        " join order_item oi on oi.order_id = o.order_id where oi.item_id = :itemId)" +
+                        " order by m.member_id for update")
+                .setParameter("itemId", itemId)
+                .getResultList();
+        update("update order_view set item_name = (select i.name from item i where i.item_id = :itemId)" +
+                " where order_item_id in (select oi.order_item_id from order_item oi where oi.item_id = :itemId)")
+                .setParameter("itemId", itemId)
+                .executeUpdate();
+    }
+
+    // 전체 다시 채우기 (처음 켤 때, 이벤트를 놓쳤을 때), 반환값은 만들어진 row 수
+    @Transactional
+    public int rebuild() {
+        update("delete from order_view").executeUpdate();
+        return update(INSERT_SELECT).executeUpdate();
+    }
+
+    // 조인 없이 order_view 만 순서대로 읽는다. (idx_order_view_order)
+    public List<OrderFlatDto> findAll() {
+        return em.createQuery(
+                        "SELECT new jpabook.jpashop.repository.order.query.OrderFlatDto(" +
+                                "v.orderId, v.memberName, v.orderDate, v.status, v.address, v.itemName, v.orderPrice, v.count)" +
+                                " FROM OrderView v" +
+                                " ORDER BY v.orderId, v.orderItemId",
+                        OrderFlatDto.class)
+                .getResultList();
+    }
+
+    // 한 회원의 주문만 (idx_order_view_member)
+    public List<OrderFlatDto> findByMemberId(Long memberId) {
+        return em.createQuery(
+                        "SELECT new jpabook.jpashop.repository.order.query.OrderFlatDto(" +
+                                "v.orderId, v.memberName, v.orderDate, v.status, v.address, v.itemName, v.orderPrice, v.count)" +
+                                " FROM OrderView v" +
+                                " WHERE v.memberId = :memberId" +
+                                " ORDER BY v.orderId, v.orderItemId",
+                        OrderFlatDto.class)
+                .setParameter("memberId", memberId)
+                .getResultList();
+    }
+
+    // native update 는 어떤 테이블이 바뀌는지 hibernate 가 모르면 2차 캐시를 전부 비워버리니까 order_view 만 바뀐다고 알려준다.
+    private Query update(String sql) {
+        Query query = em.createNativeQuery(sql);
+        query.unwrap(NativeQuery.class).addSynchronizedEntityClass(OrderView.class);
+        return query;
+    }
+}
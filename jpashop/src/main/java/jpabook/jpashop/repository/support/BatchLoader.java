@@ -0,0 +1,79 @@
+package jpabook.jpashop.repository.support;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/*
+DataLoader 스타일의 배치 로더
+DTO 를 조립하면서 load(key, callback) 으로 필요한 자식 key 만 모아두고, dispatch() 할 때 한번에 조회한다.
+-> 1 + N 번 나가던 쿼리가 1 + ceil(N / chunkSize) 번으로 줄어든다.
+
+- 같은 key 는 한번만 조회 (중복 제거)
+- key 를 chunkSize 단위로 잘라서 in 쿼리 -> DB 파라미터 개수 제한을 넘지 않음
+- chunk 가 여러개면 executor 에서 동시에 실행
+  단, 트랜잭션 안에서는 다른 스레드가 같은 커넥션을 쓸 수 없기 때문에 (아직 커밋 안된 데이터가 안보임) 호출한 스레드에서 순서대로 실행한다.
+
+한번 쓰고 버리는 객체라서 thread-safe 하지 않음. 생성은 BatchLoaderFactory 로
+ */
+public class BatchLoader<K, V> {
+
+    private final Function<List<K>, Map<K, List<V>>> batchFunction;
+    private final int chunkSize;
+    private final Executor executor;
+
+    private final Map<K, List<Consumer<List<V>>>> pending = new LinkedHashMap<>();
+
+    public BatchLoader(Function<List<K>, Map<K, List<V>>> batchFunction, int chunkSize, Executor executor) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize 는 1 이상이어야 합니다.");
+        }
+        this.batchFunction = batchFunction;
+        this.chunkSize = chunkSize;
+        this.executor = executor;
+    }
+
+    // 지금 바로 조회하지 않고 key 만 등록, 결과는 dispatch() 때 callback 으로 넘어온다.
+    public void load(K key, Consumer<List<V>> callback) {
+        pending.computeIfAbsent(key, k -> new ArrayList<>()).add(callback);
+    }
+
+    public void dispatch() {
+        if (pending.isEmpty()) return;
+
+        List<List<K>> chunks = chunk(new ArrayList<>(pending.keySet()));
+        Map<K, List<V>> result = new HashMap<>();
+        if (executor == null || chunks.size() == 1 || TransactionSynchronizationManager.isActualTransactionActive()) {
+            chunks.forEach(keys -> result.putAll(batchFunction.apply(keys)));
+        } else {
+            List<CompletableFuture<Map<K, List<V>>>> futures = chunks.stream()
+                    .map(keys -> CompletableFuture.supplyAsync(() -> batchFunction.apply(keys), executor))
+                    .toList();
+            try {
+                futures.forEach(f -> result.putAll(f.join()));
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) throw cause;
+                throw e;
+            }
+        }
+
+        pending.forEach((key, callbacks) -> {
+            List<V> values = result.getOrDefault(key, Collections.emptyList());
+            callbacks.forEach(callback -> callback.accept(values));
+        });
+        pending.clear();
+    }
+
+    private List<List<K>> chunk(List<K> keys) {
+        List<List<K>> chunks = new ArrayList<>((keys.size() + chunkSize - 1) / chunkSize);
+        for (int from = 0; from < keys.size(); from += chunkSize) {
+            chunks.add(keys.subList(from, Math.min(from + chunkSize, keys.size())));
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,46 @@
+package jpabook.jpashop.repository.support;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+/*
+BatchLoader 를 만들어주는 스프링 빈
+chunk 크기와 동시 실행 개수는 application.yml 에서 설정 (DB 마다 in 파라미터 제한이 다르니까)
+jpashop.batch-loader.chunk-size : 100 / 500 / 1000 ...
+jpashop.batch-loader.concurrency : chunk 를 동시에 실행할 스레드 수 (커넥션 풀 크기보다 작게)
+ */
+@Component
+public class BatchLoaderFactory {
+
+    private final int chunkSize;
+    private final ExecutorService executor;
+
+    public BatchLoaderFactory(@Value("${jpashop.batch-loader.chunk-size:500}") int chunkSize,
+                              @Value("${jpashop.batch-loader.concurrency:4}") int concurrency) {
+        this.chunkSize = chunkSize;
+        // 스레드 수와 큐 크기를 모두 제한, 큐가 꽉 차면 호출한 스레드에서 직접 실행
+        this.executor = new ThreadPoolExecutor(concurrency, concurrency,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(concurrency * 16),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    public <K, V> BatchLoader<K, V> create(Function<List<K>, Map<K, List<V>>> batchFunction) {
+        return new BatchLoader<>(batchFunction, chunkSize, executor);
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
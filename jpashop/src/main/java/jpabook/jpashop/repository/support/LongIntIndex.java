@@ -0,0 +1,86 @@
+package jpabook.jpashop.repository.support;
+
+/*
+long key -> int 값 (보통 List 의 위치) 을 저장하는 open addressing 해시 테이블
+HashMap<Long, ...> 은 row 마다 Long 박싱 + Entry 객체를 만들지만, 이건 long[] / int[] 두 배열만 쓴다.
+주문 id -> 결과 List 의 위치를 찾아서 주문상품을 붙일 때 사용 (v5, v6)
+
+- 빈 칸은 values 가 0, 실제로는 value + 1 을 저장 -> key 0 이나 음수도 저장 가능
+- 선형 탐사, 절반 이상 차면 2배로 늘림
+- 삭제는 지원하지 않음, thread-safe 하지 않음
+ */
+public final class LongIntIndex {
+
+    public static final int MISSING = -1;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    public LongIntIndex(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(2, expectedSize) * 2 - 1) << 1; // expectedSize * 2 이상인 2의 제곱수
+        allocate(capacity);
+    }
+
+    // 없으면 MISSING
+    public int get(long key) {
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            int value = values[slot];
+            if (value == 0) return MISSING;
+            if (keys[slot] == key) return value - 1;
+        }
+    }
+
+    // 이미 있으면 값을 바꾼다.
+    public void put(long key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("value 는 0 이상이어야 합니다.");
+        }
+        if ((size + 1) * 2 > values.length) {
+            grow();
+        }
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            if (values[slot] == 0) {
+                keys[slot] = key;
+                values[slot] = value + 1;
+                size++;
+                return;
+            }
+            if (keys[slot] == key) {
+                values[slot] = value + 1;
+                return;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L; // 연속된 id 도 고르게 퍼지게
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(oldValues.length * 2);
+        size = 0;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != 0) put(oldKeys[i], oldValues[i] - 1);
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    @Override
+    public String toString() {
+        return "LongIntIndex{size=" + size + ", capacity=" + values.length + "}";
+    }
+}
@@ -0,0 +1,124 @@
+package jpabook.jpashop.repository.support;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/*
+id 목록을 shard 로 나눠서 조회 함수를 여러 커넥션에서 동시에 실행하고, 결과 row 를 shard 순서대로 List 하나로 이어붙인다.
+BatchLoader 는 load() 로 key 를 모아서 나중에 조회하는 방식이고, 이건 id 목록이 이미 다 있을 때 (v5) 바로 쓰는 용도
+
+- 호출한 스레드 + worker(가상 스레드, parallelism - 1 개) 가 남은 shard 를 하나씩 가져가서 실행
+- worker 는 readOnly 트랜잭션으로 자기 커넥션을 따로 받은 다음에만 shard 를 가져간다.
+  -> 커넥션 풀이 꽉 차서 worker 가 커넥션을 못 받아도 호출한 스레드가 남은 shard 를 다 처리하니까 서로 기다리다 멈추지 않음
+- 트랜잭션 안에서 호출하면 BatchLoader 와 같은 이유로 호출한 스레드 혼자 순서대로 실행
+jpashop.sharded-query.shard-size : shard 하나의 id 개수 (in 파라미터 개수)
+jpashop.sharded-query.parallelism : 요청 하나가 동시에 쓰는 커넥션 수 (호출한 스레드 포함)
+ */
+@Component
+public class ShardedQueryExecutor {
+
+    private final int shardSize;
+    private volatile int parallelism;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public ShardedQueryExecutor(@Value("${jpashop.sharded-query.shard-size:1000}") int shardSize,
+                                @Value("${jpashop.sharded-query.parallelism:4}") int parallelism,
+                                PlatformTransactionManager transactionManager) {
+        if (shardSize < 1) {
+            throw new IllegalArgumentException("shardSize 는 1 이상이어야 합니다.");
+        }
+        this.shardSize = shardSize;
+        this.parallelism = parallelism;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public <R> List<R> query(List<Long> ids, Function<List<Long>, List<R>> shardQuery) {
+        List<List<Long>> shards = new ArrayList<>((ids.size() + shardSize - 1) / shardSize);
+        for (int from = 0; from < ids.size(); from += shardSize) {
+            shards.add(ids.subList(from, Math.min(from + shardSize, ids.size())));
+        }
+
+        Work<R> work = new Work<>(shards, shardQuery);
+        int workers = TransactionSynchronizationManager.isActualTransactionActive()
+                ? 0 : Math.min(parallelism, shards.size()) - 1;
+        for (int i = 0; i < workers; i++) {
+            executor.execute(() -> {
+                if (work.isDrained()) return; // 커넥션을 받기 전에 이미 다 끝났으면 그냥 종료
+                readOnlyTransaction.executeWithoutResult(status -> work.drain());
+            });
+        }
+        work.drain(); // 호출한 스레드도 같이 처리
+
+        List<List<R>> shardRows = new ArrayList<>(shards.size());
+        for (CompletableFuture<List<R>> shardResult : work.results) {
+            try {
+                shardRows.add(shardResult.join()); // 가져간 스레드는 이미 커넥션이 있으니 반드시 끝난다.
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) throw cause;
+                throw e;
+            }
+        }
+        if (shardRows.size() == 1) return shardRows.get(0);
+
+        List<R> result = new ArrayList<>(shardRows.stream().mapToInt(List::size).sum());
+        shardRows.forEach(result::addAll);
+        return result;
+    }
+
+    // 벤치마크에서 순차 (1) / 병렬을 재시작 없이 비교하기 위해
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static class Work<R> {
+
+        private final List<List<Long>> shards;
+        private final Function<List<Long>, List<R>> shardQuery;
+        private final List<CompletableFuture<List<R>>> results;
+        private final AtomicInteger next = new AtomicInteger(); // 다음에 가져갈 shard 번호
+
+        Work(List<List<Long>> shards, Function<List<Long>, List<R>> shardQuery) {
+            this.shards = shards;
+            this.shardQuery = shardQuery;
+            this.results = new ArrayList<>(shards.size());
+            for (int i = 0; i < shards.size(); i++) {
+                results.add(new CompletableFuture<>());
+            }
+        }
+
+        boolean isDrained() {
+            return next.get() >= shards.size();
+        }
+
+        void drain() {
+            for (int i = next.getAndIncrement(); i < shards.size(); i = next.getAndIncrement()) {
+                try {
+                    results.get(i).complete(shardQuery.apply(shards.get(i)));
+                } catch (RuntimeException e) {
+                    results.get(i).completeExceptionally(e);
+                }
+            }
+        }
+    }
+}
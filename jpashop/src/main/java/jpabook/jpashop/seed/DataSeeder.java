@@ -0,0 +1,272 @@
+package jpabook.jpashop.seed;
+
+import jakarta.persistence.EntityManagerFactory;
+import jpabook.jpashop.domain.PooledSequenceGenerator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/*
+부하 테스트용 대량 데이터 생성기 (InitDb 대신)
+--spring.profiles.active=seed 로 띄우면 애플리케이션 시작할 때 한번 실행된다. 설정은 SeedProperties / application-seed.yml
+
+- JPA 를 거치지 않고 JdbcTemplate batch insert 로 바로 넣는다. (엔티티를 만들고 영속성 컨텍스트에 올리는 비용이 없음)
+- chunkSize 단위로 나눠서 threads 개의 worker 가 각자 트랜잭션으로 넣는다.
+- id 는 직접 매기고, 다 넣은 다음 시퀀스를 가장 큰 id 뒤로 옮겨서 이후 JPA 로 저장해도 겹치지 않게 한다.
+- chunk 마다 seed 가 정해져 있어서 worker 수와 상관없이 항상 같은 데이터가 나온다.
+
+주의: 트래픽을 받기 전, 빈 DB 에 실행하는 용도 (실행 중에 JPA 가 먼저 받아둔 id 와 겹칠 수 있음)
+
+테스트에서는 SeedProperties 를 작게 만들어서 seed() 를 직접 부른다. (OrderSearchPlanTest, OrderQueryShardTest)
+worker 트랜잭션이 각자 커밋하니까 @Transactional 로 롤백하는 테스트의 fixture 로는 못 쓴다.
+ */
+@Slf4j
+@Profile("seed")
+@Component
+@EnableConfigurationProperties(SeedProperties.class)
+@RequiredArgsConstructor
+public class DataSeeder implements ApplicationRunner {
+
+    private static final String[] CITIES = {"서울", "부산", "대구", "인천", "광주", "대전", "울산", "진주", "수원", "제주"};
+
+    private final SeedProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManagerFactory emf;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        seed();
+    }
+
+    public void seed() {
+        if (properties.getOrders() > 0 && (properties.getMembers() <= 0 || properties.getItems() <= 0)) {
+            throw new IllegalStateException("주문을 만들려면 회원과 상품이 하나 이상 있어야 합니다.");
+        }
+        long begin = System.nanoTime();
+        long memberBase = nextId("member", "member_id");
+        long itemBase = nextId("item", "item_id");
+        long categoryBase = nextId("category", "category_id");
+        long orderBase = nextId("orders", "order_id");
+        long deliveryBase = nextId("delivery", "delivery_id");
+        long orderItemBase = nextId("order_item", "order_item_id");
+
+        // 상품 가격은 주문상품 가격에도 써야하니까 미리 만들어 둔다.
+        SplittableRandom priceRandom = new SplittableRandom(properties.getRandomSeed());
+        int[] prices = new int[properties.getItems()];
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = 1000 * (1 + priceRandom.nextInt(50));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(properties.getThreads());
+        try {
+            insertCategories(categoryBase);
+            long rows = properties.getCategories();
+            rows += runChunks(executor, "member", properties.getMembers(), (from, to) -> insertMembers(memberBase, from, to));
+            rows += runChunks(executor, "item", properties.getItems(), (from, to) -> insertItems(itemBase, categoryBase, prices, from, to));
+
+            ZipfSampler memberSampler = new ZipfSampler(Math.max(properties.getMembers(), 1), properties.getMemberSkew());
+            ZipfSampler itemSampler = new ZipfSampler(Math.max(properties.getItems(), 1), properties.getItemSkew());
+            LocalDateTime now = LocalDateTime.now();
+            rows += runChunks(executor, "order", properties.getOrders(), (from, to) -> insertOrders(
+                    memberBase, itemBase, orderBase, deliveryBase, orderItemBase,
+                    memberSampler, itemSampler, prices, now, from, to));
+
+            restartSequences();
+            emf.getCache().evictAll(); // jdbc 로 직접 넣었으니 2차 캐시 / 쿼리 캐시는 버린다.
+
+            double seconds = (System.nanoTime() - begin) / 1_000_000_000.0;
+            log.info("seed finished. rows={}, seconds={}, rows/s={}", rows, String.format("%.1f", seconds), (long) (rows / seconds));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void insertCategories(long categoryBase) {
+        int count = properties.getCategories();
+        int roots = Math.max(1, count / 10); // 앞쪽 10% 는 최상위 카테고리, 나머지는 그 중 하나의 하위 카테고리
+        SplittableRandom random = new SplittableRandom(properties.getRandomSeed());
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Long parentId = i < roots ? null : categoryBase + random.nextInt(roots);
+            rows.add(new Object[]{categoryBase + i, "category" + i, parentId});
+        }
+        transactionTemplate.executeWithoutResult(status ->
+                batchInsert("insert into category (category_id, name, parent_id) values (?, ?, ?)", rows));
+    }
+
+    // 반환값: 넣은 row 수
+    private int insertMembers(long memberBase, long from, long to) {
+        List<Object[]> members = new ArrayList<>((int) (to - from));
+        for (long i = from; i < to; i++) {
+            members.add(new Object[]{memberBase + i, "member" + i, city(i), "street" + (i % 1000), zipcode(i)});
+        }
+        transactionTemplate.executeWithoutResult(status ->
+                batchInsert("insert into member (member_id, name, city, street, zipcode) values (?, ?, ?, ?, ?)", members));
+        return members.size();
+    }
+
+    private int insertItems(long itemBase, long categoryBase, int[] prices, long from, long to) {
+        List<Object[]> items = new ArrayList<>((int) (to - from));
+        List<Object[]> categoryItems = new ArrayList<>();
+        int categories = properties.getCategories();
+        for (long i = from; i < to; i++) {
+            long itemId = itemBase + i;
+            String name = "item" + i;
+            int price = prices[(int) i];
+            int stock = 1_000_000;
+            switch ((int) (i % 3)) {
+                case 0 -> items.add(new Object[]{itemId, "B", name, price, stock, "author" + (i % 500), "isbn" + i, null, null, null, null});
+                case 1 -> items.add(new Object[]{itemId, "A", name, price, stock, null, null, "artist" + (i % 500), "etc", null, null});
+                default -> items.add(new Object[]{itemId, "M", name, price, stock, null, null, null, null, "director" + (i % 500), "actor" + (i % 500)});
+            }
+            if (categories > 0) {
+                long first = i % categories;
+                categoryItems.add(new Object[]{categoryBase + first, itemId});
+                long second = (i * 7 + 3) % categories; // 상품 일부는 카테고리 두개
+                if (i % 4 == 0 && second != first) categoryItems.add(new Object[]{categoryBase + second, itemId});
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            batchInsert("insert into item (item_id, dtype, name, price, stock_quantity, author, isbn, artist, etc, director, actor, version)"
+                    + " values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)", items);
+            batchInsert("insert into category_item (category_id, item_id) values (?, ?)", categoryItems);
+        });
+        return items.size() + categoryItems.size();
+    }
+
+    private int insertOrders(long memberBase, long itemBase, long orderBase, long deliveryBase, long orderItemBase,
+                             ZipfSampler memberSampler, ZipfSampler itemSampler, int[] prices, LocalDateTime now,
+                             long from, long to) {
+        SplittableRandom random = new SplittableRandom(properties.getRandomSeed() + from); // chunk 별로 고정된 seed
+        int maxItems = Math.min(properties.getMaxItemsPerOrder(), properties.getItems());
+        long dateRangeSeconds = properties.getDays() * 86_400L;
+
+        List<Object[]> deliveries = new ArrayList<>((int) (to - from));
+        List<Object[]> orders = new ArrayList<>((int) (to - from));
+        List<Object[]> orderItems = new ArrayList<>((int) (to - from) * maxItems);
+        int[] picked = new int[maxItems];
+        for (long i = from; i < to; i++) {
+            long orderId = orderBase + i;
+            long deliveryId = deliveryBase + i;
+            int member = memberSampler.sample(random);
+            boolean canceled = random.nextInt(10) == 0; // 10% 는 취소된 주문
+            String deliveryStatus = !canceled && random.nextBoolean() ? "COMP" : "READY";
+
+            deliveries.add(new Object[]{deliveryId, city(member), "street" + (member % 1000), zipcode(member), deliveryStatus});
+            orders.add(new Object[]{orderId, memberBase + member, deliveryId,
+                    now.minusSeconds(random.nextLong(dateRangeSeconds)), canceled ? "CANCEL" : "ORDER"});
+
+            // 한 주문 안에서는 같은 상품이 두번 나오지 않게
+            int itemCount = 1 + random.nextInt(maxItems);
+            for (int j = 0; j < itemCount; j++) {
+                int item;
+                do {
+                    item = itemSampler.sample(random);
+                } while (contains(picked, j, item));
+                picked[j] = item;
+                // order_item id 는 주문마다 maxItems 개씩 자리를 잡아둔다. (chunk 끼리 겹치지 않게)
+                orderItems.add(new Object[]{orderItemBase + i * maxItems + j, orderId, itemBase + item, prices[item], 1 + random.nextInt(3)});
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            batchInsert("insert into delivery (delivery_id, city, street, zipcode, status) values (?, ?, ?, ?, ?)", deliveries);
+            batchInsert("insert into orders (order_id, member_id, delivery_id, order_date, status) values (?, ?, ?, ?, ?)", orders);
+            batchInsert("insert into order_item (order_item_id, order_id, item_id, order_price, count) values (?, ?, ?, ?, ?)", orderItems);
+        });
+        return deliveries.size() + orders.size() + orderItems.size();
+    }
+
+    // 0 ~ total 을 chunkSize 로 잘라서 worker 들이 나눠서 실행, 모두 끝날때까지 기다린다.
+    private long runChunks(ExecutorService executor, String name, int total, ChunkWriter writer) {
+        long begin = System.nanoTime();
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (long from = 0; from < total; from += properties.getChunkSize()) {
+            long chunkFrom = from;
+            long chunkTo = Math.min(total, from + properties.getChunkSize());
+            futures.add(executor.submit(() -> writer.write(chunkFrom, chunkTo)));
+        }
+
+        long rows = 0;
+        try {
+            for (Future<Integer> future : futures) {
+                rows += future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("seed interrupted", e);
+        } catch (ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            throw new IllegalStateException(name + " seed failed", e.getCause());
+        }
+        double seconds = (System.nanoTime() - begin) / 1_000_000_000.0;
+        log.info("seed {}: rows={}, rows/s={}", name, rows, (long) (rows / Math.max(seconds, 0.001)));
+        return rows;
+    }
+
+    private void batchInsert(String sql, List<Object[]> rows) {
+        jdbcTemplate.batchUpdate(sql, rows, properties.getBatchSize(), (ps, row) -> {
+            for (int i = 0; i < row.length; i++) {
+                ps.setObject(i + 1, row[i]);
+            }
+        });
+    }
+
+    private long nextId(String table, String idColumn) {
+        return jdbcTemplate.queryForObject("select coalesce(max(" + idColumn + "), 0) + 1 from " + table, Long.class);
+    }
+
+    // pooled 시퀀스는 받은 값에서 allocation size - 1 을 뺀 값부터 id 로 쓰니까, (max id + allocation size) 로 옮기면 max id + 1 부터 이어진다.
+    private void restartSequences() {
+        int allocationSize = ConfigurationHelper.getInt(PooledSequenceGenerator.ALLOCATION_SIZE,
+                emf.getProperties(), PooledSequenceGenerator.DEFAULT_ALLOCATION_SIZE);
+        String[][] sequences = {
+                {"member_seq", "member", "member_id"},
+                {"item_seq", "item", "item_id"},
+                {"category_seq", "category", "category_id"},
+                {"orders_seq", "orders", "order_id"},
+                {"delivery_seq", "delivery", "delivery_id"},
+                {"order_item_seq", "order_item", "order_item_id"},
+        };
+        for (String[] seq : sequences) {
+            long next = nextId(seq[1], seq[2]) - 1 + allocationSize;
+            jdbcTemplate.execute("alter sequence " + seq[0] + " restart with " + next);
+        }
+    }
+
+    private static boolean contains(int[] values, int length, int value) {
+        for (int i = 0; i < length; i++) {
+            if (values[i] == value) return true;
+        }
+        return false;
+    }
+
+    private static String city(long i) {
+        return CITIES[(int) (i % CITIES.length)];
+    }
+
+    private static String zipcode(long i) {
+        return String.format("%05d", i % 100_000);
+    }
+
+    @FunctionalInterface
+    private interface ChunkWriter {
+        int write(long from, long to);
+    }
+}
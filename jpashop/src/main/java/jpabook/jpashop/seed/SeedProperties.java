@@ -0,0 +1,26 @@
+package jpabook.jpashop.seed;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// 대량 데이터 생성 설정 (jpashop.seed.*), 기본값은 전체 약 1000만 row
+@Getter @Setter
+@ConfigurationProperties(prefix = "jpashop.seed")
+public class SeedProperties {
+
+    private int members = 1_000_000;
+    private int items = 100_000;
+    private int categories = 1_000;
+    private int orders = 2_250_000;
+    private int maxItemsPerOrder = 3; // 주문 하나에 상품 1 ~ maxItemsPerOrder 개
+
+    private double memberSkew = 1.1; // 회원 주문 빈도 zipf 지수, 소수의 회원이 주문 대부분을 차지
+    private double itemSkew = 1.2; // 상품 인기 zipf 지수
+    private int days = 365; // 주문일은 최근 days 일 사이에 퍼뜨린다.
+
+    private int threads = 4; // 동시에 insert 하는 worker 수 (커넥션 풀보다 작게)
+    private int chunkSize = 10_000; // worker 가 트랜잭션 하나로 넣는 단위
+    private int batchSize = 1_000; // jdbc batch 하나에 묶는 row 수
+    private long randomSeed = 42; // 같은 seed 면 항상 같은 데이터
+}
@@ -0,0 +1,32 @@
+package jpabook.jpashop.seed;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/*
+0 ~ n-1 순위 중에서 하나를 뽑는데, 순위 k 가 뽑힐 확률이 1 / (k+1)^exponent 에 비례
+exponent 가 클수록 앞 순위 몇개에 몰린다. (0 이면 균등 분포)
+-> 인기 상품, 주문을 많이 하는 회원처럼 실제 서비스의 쏠림을 흉내내기 위해 사용
+ */
+class ZipfSampler {
+
+    private final double[] cdf; // 누적 확률
+
+    ZipfSampler(int n, double exponent) {
+        cdf = new double[n];
+        double sum = 0;
+        for (int k = 0; k < n; k++) {
+            sum += 1 / Math.pow(k + 1, exponent);
+            cdf[k] = sum;
+        }
+        for (int k = 0; k < n; k++) {
+            cdf[k] /= sum;
+        }
+    }
+
+    int sample(SplittableRandom random) {
+        int index = Arrays.binarySearch(cdf, random.nextDouble());
+        int rank = index >= 0 ? index : -index - 1;
+        return Math.min(rank, cdf.length - 1);
+    }
+}
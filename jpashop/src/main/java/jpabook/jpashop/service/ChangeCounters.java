@@ -0,0 +1,41 @@
+package jpabook.jpashop.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+애그리거트(주문 / 상품 / 회원) 별 변경 카운터
+쓰기 경로(OrderService / ItemService / MemberService) 에서 올리고, 응답 캐시(ResponseCacheFilter) 는 이 값이 그대로면 저장해둔 응답을 재사용한다.
+
+트랜잭션 안에서 호출하면 커밋된 다음에 올린다.
+-> 커밋 전에 올리면 그 사이에 들어온 조회가 아직 커밋 안된 (예전) 데이터를 새 버전으로 캐시해버린다.
+-> 롤백되면 올리지 않는다.
+카운터는 이 JVM 메모리에 있어서 서버 1대 기준이다. (재시작하면 0 부터)
+ */
+@Component
+public class ChangeCounters {
+
+    public enum Aggregate { ORDER, ITEM, MEMBER }
+
+    private final AtomicLongArray counters = new AtomicLongArray(Aggregate.values().length);
+
+    public void bump(Aggregate aggregate) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    counters.incrementAndGet(aggregate.ordinal());
+                }
+            });
+        } else {
+            counters.incrementAndGet(aggregate.ordinal());
+        }
+    }
+
+    public long get(Aggregate aggregate) {
+        return counters.get(aggregate.ordinal());
+    }
+}
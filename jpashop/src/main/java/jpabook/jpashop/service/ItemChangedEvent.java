@@ -0,0 +1,5 @@
+package jpabook.jpashop.service;
+
+// 상품 정보가 바뀜 (이름 수정)
+public record ItemChangedEvent(Long itemId) {
+}
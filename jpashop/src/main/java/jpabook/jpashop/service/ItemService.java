@@ -4,10 +4,12 @@ import jpabook.jpashop.domain.item.Book;
 import jpabook.jpashop.domain.item.Item;
 import jpabook.jpashop.repository.ItemRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Objects;
 
 // 단순히 item repository 에 위임만 하는 클래스
 @Service
@@ -16,18 +18,27 @@ import java.util.List;
 public class ItemService {
 
     private final ItemRepository itemRepository;
+    private final StockReservationService stockReservationService;
+    private final ChangeCounters changeCounters;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public void saveItem(Item item) {
         itemRepository.save(item);
+        changeCounters.bump(ChangeCounters.Aggregate.ITEM);
     }
 
     @Transactional
     public void updateItem(Long itemId, String name, int price, int stockQuantity) {
         Item findItem = itemRepository.findOne(itemId);
+        if (!Objects.equals(findItem.getName(), name)) {
+            eventPublisher.publishEvent(new ItemChangedEvent(itemId)); // 커밋 후 order_view 의 상품 이름 갱신
+        }
         findItem.setName(name);
         findItem.setPrice(price);
         findItem.setStockQuantity(stockQuantity);
+        stockReservationService.reset(itemId); // 재고를 직접 바꿨으니 메모리 재고는 DB 기준으로 다시 읽기
+        changeCounters.bump(ChangeCounters.Aggregate.ITEM); // 커밋 후 주문 목록 응답 캐시 무효화 (상품 이름이 나간다)
         // 보통 의미있는 값만 받아서 ex) change 함수를 만들어서 호출하지 setter를 쓰지 않는다.
     }
 
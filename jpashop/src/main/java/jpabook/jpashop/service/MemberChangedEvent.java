@@ -0,0 +1,5 @@
+package jpabook.jpashop.service;
+
+// 회원 정보가 바뀜 (이름 수정)
+public record MemberChangedEvent(Long memberId) {
+}
@@ -3,6 +3,7 @@ package jpabook.jpashop.service;
 import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.repository.MemberRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -15,6 +16,8 @@ public class MemberService {
 
     // 최신 스프링에서는 autowired 없어서 자동으로 생성자를 통해서 의존성을 주입해준다.
     private final MemberRepository memberRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ChangeCounters changeCounters;
 
     /*
     회원 가입
@@ -23,6 +26,7 @@ public class MemberService {
     public Long join(Member member) {
         validateDuplicateMember(member); // 중복 회원 검증
         memberRepository.save(member);
+        changeCounters.bump(ChangeCounters.Aggregate.MEMBER);
         return member.getId();
     }
 
@@ -48,5 +52,7 @@ public class MemberService {
     public void update(Long id, String name) {
         Member member = memberRepository.findById(id).get();
         member.setName(name);
+        eventPublisher.publishEvent(new MemberChangedEvent(id)); // 커밋 후 order_view 의 회원 이름 갱신
+        changeCounters.bump(ChangeCounters.Aggregate.MEMBER); // 주문 목록에 회원 이름이 나가니까 응답 캐시 무효화
     }
 }
@@ -0,0 +1,7 @@
+package jpabook.jpashop.service;
+
+import java.util.List;
+
+// 주문이 생기거나 상태가 바뀜 (주문, 일괄 주문, 취소)
+public record OrderChangedEvent(List<Long> orderIds) {
+}
@@ -0,0 +1,22 @@
+package jpabook.jpashop.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+// 일괄 주문 한건 -> 회원 한명이 여러 상품을 한번에 주문
+@Getter
+@AllArgsConstructor
+public class OrderCommand {
+
+    private Long memberId;
+    private List<OrderLine> lines;
+
+    @Getter
+    @AllArgsConstructor
+    public static class OrderLine {
+        private Long itemId;
+        private int count;
+    }
+}
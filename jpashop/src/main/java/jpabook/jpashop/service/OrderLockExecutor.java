@@ -0,0 +1,142 @@
+package jpabook.jpashop.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.OptimisticLockException;
+import jpabook.jpashop.domain.item.Item;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/*
+주문할 때 같은 상품의 재고를 동시에 바꾸는 경우를 처리하는 방식
+jpashop.order.lock-mode 로 선택한다.
+
+- OPTIMISTIC (기본) : Item.version 으로 충돌을 감지하고, 충돌나면 트랜잭션을 통째로 다시 실행
+                     재시도 사이에는 지수 백오프 + jitter 로 잠깐 쉬어서 같은 상품에 몰린 요청끼리 또 부딪히지 않게 한다.
+- PESSIMISTIC      : select ... for update 로 상품 row 를 잠그고 주문, 충돌이 없는 대신 같은 상품 주문은 줄을 선다.
+
+재시도는 트랜잭션 바깥에서만 가능하다. 이미 트랜잭션 안에서 호출되면 (테스트 등) 그 트랜잭션에 참여하고 재시도하지 않는다.
+ */
+@Slf4j
+@Component
+public class OrderLockExecutor {
+
+    public enum LockMode { OPTIMISTIC, PESSIMISTIC }
+
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManagerFactory emf;
+    private final int maxAttempts;
+    private final long backoffMs;
+    private final long maxBackoffMs;
+
+    private volatile LockMode lockMode;
+
+    private final ConcurrentHashMap<Long, ItemLockStats> stats = new ConcurrentHashMap<>();
+
+    public OrderLockExecutor(@Value("${jpashop.order.lock-mode:optimistic}") LockMode lockMode,
+                             @Value("${jpashop.order.max-attempts:10}") int maxAttempts,
+                             @Value("${jpashop.order.backoff-ms:5}") long backoffMs,
+                             @Value("${jpashop.order.max-backoff-ms:100}") long maxBackoffMs,
+                             TransactionTemplate transactionTemplate,
+                             EntityManagerFactory emf) {
+        this.lockMode = lockMode;
+        this.maxAttempts = maxAttempts;
+        this.backoffMs = backoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.transactionTemplate = transactionTemplate;
+        this.emf = emf;
+    }
+
+    public LockMode getLockMode() {
+        return lockMode;
+    }
+
+    // 재시작 없이 모드를 바꿔서 비교해보기 위해 (벤치마크)
+    public void setLockMode(LockMode lockMode) {
+        this.lockMode = lockMode;
+    }
+
+    public boolean isPessimistic() {
+        return lockMode == LockMode.PESSIMISTIC;
+    }
+
+    /*
+    itemId 재고를 바꾸는 작업을 트랜잭션 하나로 실행
+    낙관적 락 충돌이면 maxAttempts 까지 다시 실행하고, 그래도 안되면 마지막 예외를 그대로 던진다.
+     */
+    public <T> T execute(Long itemId, Supplier<T> work) {
+        return execute(List.of(itemId), work);
+    }
+
+    /*
+    여러 상품을 한번에 바꾸는 작업 (일괄 주문)
+    어느 상품에서 충돌났는지는 알 수 없으니까 함께 바꾼 상품 모두에 충돌을 기록한다.
+     */
+    public <T> T execute(Collection<Long> itemIds, Supplier<T> work) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return work.get();
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> work.get());
+            } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+                boolean exhausted = attempt >= maxAttempts;
+                for (Long itemId : itemIds) {
+                    ItemLockStats itemStats = stats.computeIfAbsent(itemId, id -> new ItemLockStats());
+                    itemStats.conflicts.increment();
+                    if (exhausted) {
+                        itemStats.exhausted.increment();
+                    } else {
+                        itemStats.retries.increment();
+                        emf.getCache().evict(Item.class, itemId); // 2차 캐시에 남은 예전 version 을 다시 읽지 않게
+                    }
+                }
+                if (exhausted) {
+                    log.warn("order retry exhausted. itemIds={}, attempts={}", itemIds, attempt);
+                    throw e;
+                }
+                backoff(attempt, e);
+            }
+        }
+    }
+
+    private void backoff(int attempt, RuntimeException cause) {
+        long cap = Math.min(maxBackoffMs, backoffMs << Math.min(attempt - 1, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(cap + 1)); // full jitter
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw cause;
+        }
+    }
+
+    // 상품별 충돌 / 재시도 횟수 (itemId 순)
+    public Map<Long, ItemLockStats> getStats() {
+        return new TreeMap<>(stats);
+    }
+
+    public void resetStats() {
+        stats.clear();
+    }
+
+    @Getter
+    public static class ItemLockStats {
+        private final LongAdder conflicts = new LongAdder(); // 낙관적 락 충돌 횟수
+        private final LongAdder retries = new LongAdder(); // 다시 실행한 횟수
+        private final LongAdder exhausted = new LongAdder(); // 재시도를 다 쓰고 실패한 횟수
+    }
+}
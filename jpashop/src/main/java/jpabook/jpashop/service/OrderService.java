@@ -5,15 +5,21 @@ import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderItem;
 import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.exception.NotEnoughStockException;
 import jpabook.jpashop.repository.ItemRepository;
 import jpabook.jpashop.repository.MemberRepository;
 import jpabook.jpashop.repository.OrderRepository;
 import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.service.OrderCommand.OrderLine;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -23,20 +29,40 @@ public class OrderService {
     private final OrderRepository orderRepository;
     private final MemberRepository memberRepository;
     private final ItemRepository itemRepository;
+    private final StockReservationService stockReservationService;
+    private final OrderLockExecutor orderLockExecutor;
+    private final OrderSummaryService orderSummaryService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ChangeCounters changeCounters;
 
     // 주문
-    @Transactional
+    // 트랜잭션은 OrderLockExecutor 가 시도마다 새로 연다. (낙관적 락 충돌이면 트랜잭션을 통째로 재시도해야 하니까)
+    // SUPPORTS -> 바깥에 트랜잭션이 있으면 거기에 참여
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Long order(Long memberId, Long itemId, int count){
+        return orderLockExecutor.execute(itemId, () -> placeOrder(memberId, itemId, count));
+    }
+
+    private Long placeOrder(Long memberId, Long itemId, int count){
         // 엔티티 조회
         Member member = memberRepository.findById(memberId).get();
-        Item item = itemRepository.findOne(itemId);
+        Item item = orderLockExecutor.isPessimistic() && !stockReservationService.isEnabled()
+                ? itemRepository.findOneForUpdate(itemId) // 비관적 락 모드면 상품 row 를 잠그고 읽는다.
+                : itemRepository.findOne(itemId);
 
         // 배송정보 생성
         Delivery delivery = new Delivery();
         delivery.setAddress(member.getAddress());
 
         // 주문 상품 생성
-        OrderItem orderItem = OrderItem.createOrderItem(item, item.getPrice(), count);
+        OrderItem orderItem;
+        if (stockReservationService.isEnabled()) {
+            // 재고는 메모리에서 CAS 로 차감, DB 반영은 batch 로 나중에
+            stockReservationService.reserve(itemId, count);
+            orderItem = OrderItem.createReservedOrderItem(item, item.getPrice(), count);
+        } else {
+            orderItem = OrderItem.createOrderItem(item, item.getPrice(), count);
+        }
 
         // 주문 생성
         Order order = Order.createOrder(member, delivery, orderItem);
@@ -45,17 +71,100 @@ public class OrderService {
         // Order entity의 cascade option때문에 가능, 추가로 delivery도 cascade가 되어있는데 그렇기 때문에 order가 persist되면 자동으로 해준다. -> orderItem, delivery가 자동 persist
         // 언제 써야하나? 다른 곳에서 참조가 들어오지 않는 경우 유용하게 쓸 수 있음
         orderRepository.save(order);
+        orderSummaryService.onOrdered(List.of(order)); // 요약 테이블을 쓰면 같이 갱신
+        eventPublisher.publishEvent(new OrderChangedEvent(List.of(order.getId()))); // 커밋 후 order_view 갱신
+        changeCounters.bump(ChangeCounters.Aggregate.ORDER); // 커밋 후 주문 목록 응답 캐시 무효화
 
         return order.getId();
     }
 
+    // 일괄 주문 -> 여러 회원의 주문 여러건 (주문마다 상품 여러개) 을 트랜잭션 하나로 저장
+    // 하나라도 재고가 부족하거나 없는 회원 / 상품이 있으면 전부 저장하지 않는다.
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<Long> orderAll(List<OrderCommand> commands){
+        Set<Long> itemIds = commands.stream()
+                .flatMap(c -> c.getLines().stream())
+                .map(OrderLine::getItemId)
+                .collect(Collectors.toCollection(TreeSet::new));
+        return orderLockExecutor.execute(itemIds, () -> placeOrders(commands, itemIds));
+    }
+
+    private List<Long> placeOrders(List<OrderCommand> commands, Set<Long> itemIds){
+        // 회원, 상품을 각각 in 쿼리 한번으로 조회
+        Set<Long> memberIds = commands.stream().map(OrderCommand::getMemberId).collect(Collectors.toSet());
+        Map<Long, Member> members = memberRepository.findAllById(memberIds).stream()
+                .collect(Collectors.toMap(Member::getId, Function.identity()));
+        boolean reservation = stockReservationService.isEnabled();
+        List<Item> findItems = orderLockExecutor.isPessimistic() && !reservation
+                ? itemRepository.findAllByIdForUpdate(itemIds)
+                : itemRepository.findAllById(itemIds);
+        Map<Long, Item> items = findItems.stream().collect(Collectors.toMap(Item::getId, Function.identity()));
+
+        // 재고 검증은 메모리에서 -> 같은 상품을 여러 주문에서 사면 수량을 합쳐서 확인
+        Map<Long, Integer> requested = new TreeMap<>();
+        for (OrderCommand command : commands) {
+            if (!members.containsKey(command.getMemberId())) {
+                throw new IllegalArgumentException("존재하지 않는 회원입니다. memberId=" + command.getMemberId());
+            }
+            if (command.getLines().isEmpty()) {
+                throw new IllegalArgumentException("주문 상품이 없습니다. memberId=" + command.getMemberId());
+            }
+            command.getLines().forEach(line -> requested.merge(line.getItemId(), line.getCount(), Integer::sum));
+        }
+        requested.forEach((itemId, count) -> {
+            Item item = items.get(itemId);
+            if (item == null) {
+                throw new IllegalArgumentException("존재하지 않는 상품입니다. itemId=" + itemId);
+            }
+            if (reservation) {
+                stockReservationService.reserve(itemId, count); // 롤백되면 자동으로 되돌려진다.
+            } else if (item.getStockQuantity() < count) {
+                throw new NotEnoughStockException("need more stock");
+            }
+        });
+
+        // 주문 생성, insert 는 flush 할 때 jdbc batch 로 묶여서 나간다.
+        List<Order> orders = new ArrayList<>(commands.size());
+        for (OrderCommand command : commands) {
+            Member member = members.get(command.getMemberId());
+            Delivery delivery = new Delivery();
+            delivery.setAddress(member.getAddress());
+
+            OrderItem[] orderItems = command.getLines().stream()
+                    .map(line -> {
+                        Item item = items.get(line.getItemId());
+                        return reservation
+                                ? OrderItem.createReservedOrderItem(item, item.getPrice(), line.getCount())
+                                : OrderItem.createOrderItem(item, item.getPrice(), line.getCount());
+                    })
+                    .toArray(OrderItem[]::new);
+
+            Order order = Order.createOrder(member, delivery, orderItems);
+            orderRepository.save(order);
+            orders.add(order);
+        }
+        orderSummaryService.onOrdered(orders);
+        List<Long> orderIds = orders.stream().map(Order::getId).toList();
+        eventPublisher.publishEvent(new OrderChangedEvent(orderIds));
+        changeCounters.bump(ChangeCounters.Aggregate.ORDER);
+        return orderIds;
+    }
+
     // 취소
     @Transactional
     public void cancelOrder(Long orderId){
         // 주문 엔티티 조회
         Order order = orderRepository.findOne(orderId);
         // 주문 취소
-        order.cancel(); // jpa를 사용하지 않으면 이렇게 값이 변경되면 update 쿼리를 직접 작성해야함. 하지만 사용하면 알아서 더티체킹을 통해 쿼리를 날려줌
+        if (stockReservationService.isEnabled()) {
+            order.cancelWithoutStock();
+            order.getOrderItems().forEach(oi -> stockReservationService.cancel(oi.getItem().getId(), oi.getCount()));
+        } else {
+            order.cancel(); // jpa를 사용하지 않으면 이렇게 값이 변경되면 update 쿼리를 직접 작성해야함. 하지만 사용하면 알아서 더티체킹을 통해 쿼리를 날려줌
+        }
+        orderSummaryService.onCanceled(order);
+        eventPublisher.publishEvent(new OrderChangedEvent(List.of(orderId)));
+        changeCounters.bump(ChangeCounters.Aggregate.ORDER);
     }
 
     // 검색
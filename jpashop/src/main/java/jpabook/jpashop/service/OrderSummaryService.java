@@ -0,0 +1,117 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderSummary;
+import jpabook.jpashop.domain.OrderSummaryId;
+import jpabook.jpashop.repository.MemberRepository;
+import jpabook.jpashop.repository.OrderSummaryRepository;
+import jpabook.jpashop.repository.order.query.MemberOrderSummaryDto;
+import jpabook.jpashop.repository.order.query.OrderStatusSummaryDto;
+import jpabook.jpashop.repository.order.query.OrderSummaryQueryRepository;
+import jpabook.jpashop.repository.order.query.OrderTotalDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.TreeSet;
+
+/*
+주문 합계 / 건수 조회 (대시보드용)
+jpashop.order-summary.enabled 가 true 면 주문, 취소할 때 OrderSummary 요약 테이블도 같은 트랜잭션에서 갱신하고
+회원별 / 상태별 조회는 요약 테이블만 읽는다. false 면 매번 orders + order_item 을 GROUP BY
+
+요약 row 는 회원별이라 같은 회원의 주문이 동시에 들어오면 그날 첫 주문의 insert 가 겹칠 수 있다.
+-> 요약을 고치기 전에 회원 row 를 select ... for update 로 잠가서 같은 회원의 요약 갱신은 줄을 세운다.
+ */
+@Service
+@Transactional(readOnly = true)
+public class OrderSummaryService {
+
+    private final MemberRepository memberRepository;
+    private final OrderSummaryRepository orderSummaryRepository;
+    private final OrderSummaryQueryRepository orderSummaryQueryRepository;
+    private final boolean enabled;
+
+    public OrderSummaryService(MemberRepository memberRepository,
+                               OrderSummaryRepository orderSummaryRepository,
+                               OrderSummaryQueryRepository orderSummaryQueryRepository,
+                               @Value("${jpashop.order-summary.enabled:false}") boolean enabled) {
+        this.memberRepository = memberRepository;
+        this.orderSummaryRepository = orderSummaryRepository;
+        this.orderSummaryQueryRepository = orderSummaryQueryRepository;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // 주문 저장 직후 호출 (OrderService 트랜잭션 안에서)
+    @Transactional
+    public void onOrdered(List<Order> orders) {
+        if (!enabled || orders.isEmpty()) return;
+        lockMembers(orders);
+        for (Order order : orders) {
+            findOrCreate(order).addOrder(order.getTotalPrice());
+        }
+    }
+
+    // 주문 취소 직후 호출
+    @Transactional
+    public void onCanceled(Order order) {
+        if (!enabled) return;
+        lockMembers(List.of(order));
+        findOrCreate(order).cancelOrder(order.getTotalPrice());
+    }
+
+    // 여러 회원을 잠글 때는 항상 id 순서로 -> 일괄 주문끼리 서로 반대 순서로 잠가서 deadlock 나지 않게
+    private void lockMembers(List<Order> orders) {
+        TreeSet<Long> memberIds = new TreeSet<>();
+        orders.forEach(o -> memberIds.add(o.getMember().getId()));
+        memberRepository.findAllByIdForUpdate(memberIds);
+    }
+
+    private OrderSummary findOrCreate(Order order) {
+        OrderSummaryId id = new OrderSummaryId(order.getMember().getId(), order.getOrderDate().toLocalDate());
+        OrderSummary summary = orderSummaryRepository.findOne(id);
+        if (summary == null) {
+            summary = new OrderSummary(id);
+            orderSummaryRepository.save(summary);
+        }
+        return summary;
+    }
+
+    // 요약 테이블을 처음부터 다시 계산, 반환값은 만들어진 row 수
+    @Transactional
+    public int rebuild() {
+        return orderSummaryRepository.rebuild();
+    }
+
+    // 기간은 모두 [from, to] 일 단위
+    public List<OrderTotalDto> findOrderTotals(LocalDate from, LocalDate to, int offset, int limit) {
+        validateRange(from, to);
+        return orderSummaryQueryRepository.findOrderTotals(from.atStartOfDay(), to.plusDays(1).atStartOfDay(), offset, limit);
+    }
+
+    public List<MemberOrderSummaryDto> findMemberSummaries(LocalDate from, LocalDate to) {
+        validateRange(from, to);
+        return enabled
+                ? orderSummaryQueryRepository.findMemberSummariesFromSummary(from, to)
+                : orderSummaryQueryRepository.findMemberSummaries(from.atStartOfDay(), to.plusDays(1).atStartOfDay());
+    }
+
+    public List<OrderStatusSummaryDto> findStatusSummaries(LocalDate from, LocalDate to) {
+        validateRange(from, to);
+        return enabled
+                ? orderSummaryQueryRepository.findStatusSummariesFromSummary(from, to)
+                : orderSummaryQueryRepository.findStatusSummaries(from.atStartOfDay(), to.plusDays(1).atStartOfDay());
+    }
+
+    private void validateRange(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("조회 시작일이 종료일보다 늦습니다. from=" + from + ", to=" + to);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.repository.order.query.OrderViewRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/*
+order_view 읽기 모델을 원본과 맞춰주는 리스너 (jpashop.order-view.enabled=true 일 때만 등록)
+OrderService / MemberService / ItemService 가 던진 이벤트를 원래 트랜잭션이 커밋된 다음에 받아서 해당 주문 / 회원 / 상품의 row 를 다시 채운다.
+-> 롤백된 주문은 반영되지 않고, 낙관적 락 재시도 중 실패한 시도도 반영되지 않는다.
+
+갱신이 실패해도 주문은 이미 커밋됐으니 요청을 실패시키지 않고 로그만 남긴다. (rebuild 로 복구)
+jpashop.order-view.rebuild-on-startup=true 면 시작할 때 전체를 다시 채운다. (처음 켤 때 backfill)
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "jpashop.order-view.enabled", havingValue = "true")
+public class OrderViewProjector implements ApplicationRunner {
+
+    private final OrderViewRepository orderViewRepository;
+    private final boolean rebuildOnStartup;
+
+    public OrderViewProjector(OrderViewRepository orderViewRepository,
+                              @Value("${jpashop.order-view.rebuild-on-startup:false}") boolean rebuildOnStartup) {
+        this.orderViewRepository = orderViewRepository;
+        this.rebuildOnStartup = rebuildOnStartup;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true) // 기본 phase = AFTER_COMMIT
+    public void on(OrderChangedEvent event) {
+        try {
+            orderViewRepository.refreshOrders(event.orderIds());
+        } catch (RuntimeException e) {
+            log.error("order_view refresh failed. orderIds={}", event.orderIds(), e);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void on(MemberChangedEvent event) {
+        try {
+            orderViewRepository.refreshMember(event.memberId());
+        } catch (RuntimeException e) {
+            log.error("order_view refresh failed. memberId={}", event.memberId(), e);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void on(ItemChangedEvent event) {
+        try {
+            orderViewRepository.refreshItem(event.itemId());
+        } catch (RuntimeException e) {
+            log.error("order_view refresh failed. itemId={}", event.itemId(), e);
+        }
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (rebuildOnStartup) {
+            log.info("order_view rebuilt. rows={}", orderViewRepository.rebuild());
+        }
+    }
+}
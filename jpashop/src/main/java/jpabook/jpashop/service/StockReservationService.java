@@ -0,0 +1,371 @@
+package jpabook.jpashop.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+Item.removeStock 앞단에서 재고를 메모리로 관리하는 예약 레이어
+jpashop.stock.reservation.enabled: true 일 때만 OrderService 가 사용한다.
+
+- 상품별 남은 재고를 AtomicInteger 로 들고 CAS 로 차감 -> 락 없이 동시에 주문해도 초과 판매가 없다.
+- 재고가 부족하면 DB 를 건드리지 않고 바로 NotEnoughStockException
+- DB 에는 아직 반영 안된 차감량(pending) 만 모아두었다가 주기적으로
+  UPDATE item SET stock_quantity = stock_quantity - ?, version = version + 1 을 batch 로 한번에 날린다.
+  (version 도 올려야 낙관적 락으로 읽어둔 엔티티가 덮어쓰지 않는다.)
+- pending 에는 커밋된 주문 / 취소만 더한다. (롤백될 예약이 DB 에 나갔다가 되돌아오지 않게)
+
+관리자가 재고를 직접 고치면 (reset) 그 상품의 카운터를 새 카운터로 바꾼다.
+- 예전 카운터에서 아직 flush 안된 차감량(pending) 과 커밋 / 롤백을 기다리는 예약량(held) 은 버리지 않고 넘긴다. (carryOver)
+  새 카운터 = DB 값 - 넘긴 차감량 - 넘긴 예약량, 차감량은 다음 flush 때 DB 에도 반영
+- 예전 카운터에서 한 예약이 나중에 끝나면 지금 카운터에서 정리한다. (커밋: held -> pending, 롤백: held -> available)
+- flush / reset / 카운터 로딩 / 늦게 끝난 예약 정리는 flushLock 으로 순서를 맞춘다. (넘기는 중인 양을 새 카운터가 놓치지 않게)
+
+주의
+- 재고 카운터가 이 JVM 메모리에 있기 때문에 서버 1대일 때만 맞다.
+- flush 전에 서버가 죽으면 그 사이 차감량은 DB 에 반영되지 않는다. flush 주기를 짧게 유지할 것
+ */
+@Slf4j
+@Service
+public class StockReservationService {
+
+    private final boolean enabled;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManagerFactory emf;
+
+    private final ConcurrentHashMap<Long, ItemStock> stocks = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Integer> carryOver = new ConcurrentHashMap<>(); // 바뀐 카운터에서 넘겨받은, 아직 DB 에 반영 안된 차감량
+    private final ConcurrentHashMap<Long, Integer> carryHeld = new ConcurrentHashMap<>(); // 바뀐 카운터에서 넘겨받은, 아직 끝나지 않은 예약량
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    public StockReservationService(@Value("${jpashop.stock.reservation.enabled:false}") boolean enabled,
+                                   JdbcTemplate jdbcTemplate,
+                                   TransactionTemplate transactionTemplate,
+                                   EntityManagerFactory emf) {
+        this.enabled = enabled;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.emf = emf;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /*
+    재고 예약 (차감)
+    트랜잭션 안에서 호출하면 커밋될 때 DB 반영 대상(pending) 에 넣고, 롤백되면 예약을 되돌린다.
+     */
+    public void reserve(Long itemId, int quantity) {
+        ItemStock stock = hold(itemId, quantity);
+        while (true) {
+            int available = stock.available.get();
+            int rest = available - quantity;
+            if (rest < 0) {
+                release(itemId, stock, quantity, false);
+                throw new NotEnoughStockException("need more stock");
+            }
+            if (stock.available.compareAndSet(available, rest)) break; // 다른 스레드가 먼저 바꿨으면 다시 시도
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) commit(itemId, stock, quantity);
+                    else release(itemId, stock, quantity, true);
+                }
+            });
+        } else {
+            commit(itemId, stock, quantity);
+        }
+    }
+
+    /*
+    예약 취소 (재고 복구)
+    트랜잭션 안에서 호출하면 커밋된 다음에 복구한다.
+    취소는 DB 에 반영된 재고를 되돌리는 것이니까 지금 카운터(세대와 상관없이) 에 더한다.
+     */
+    public void cancel(Long itemId, int quantity) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    adjust(itemId, quantity, -quantity);
+                }
+            });
+        } else {
+            adjust(itemId, quantity, -quantity);
+        }
+    }
+
+    // 예약이 끝날 때까지 held 에 잡아둔다. (reset 되면 새 카운터가 이 양을 빼고 시작하도록)
+    private ItemStock hold(Long itemId, int quantity) {
+        while (true) {
+            ItemStock stock = current(itemId);
+            if (stock.held.add(quantity)) return stock;
+        }
+    }
+
+    // 예약이 커밋됨 -> held 에서 pending 으로. 그 사이 카운터가 바뀌었으면 지금 카운터에서
+    private void commit(Long itemId, ItemStock reserved, int quantity) {
+        if (!reserved.pending.add(quantity)) {
+            settleLate(itemId, quantity, true);
+            return;
+        }
+        if (!reserved.held.add(-quantity)) {
+            settleLate(itemId, quantity, false); // pending 과 held 가 둘 다 넘어가서 새 카운터에서 두번 빠졌다.
+        }
+    }
+
+    // 예약이 롤백됨 / 재고 부족 -> held 에서 빼고, 이미 차감했으면(restore) 되돌린다.
+    private void release(Long itemId, ItemStock reserved, int quantity, boolean restore) {
+        if (!reserved.held.add(-quantity)) {
+            settleLate(itemId, quantity, false); // 새 카운터는 넘겨받은 held 만큼 빼고 시작했으니 그만큼 돌려준다.
+            return;
+        }
+        if (restore) reserved.available.addAndGet(quantity); // 그 사이 바뀌었으면 버려진 카운터라 상관없다.
+    }
+
+    /*
+    바뀐 카운터에서 한 예약이 끝남 -> 넘겨받은 held 를 지금 카운터(아직 안 올라왔으면 carryOver) 에서 정리
+    committed: held -> pending (재고는 이미 빠져있음) / 아니면 held 만큼 재고를 돌려준다.
+    flushLock 안에서는 카운터가 바뀌지 않는다.
+     */
+    private void settleLate(Long itemId, int quantity, boolean committed) {
+        flushLock.lock();
+        try {
+            ItemStock current = stocks.get(itemId);
+            if (current == null) { // 다음 loadStock 이 carryOver 를 가져간다.
+                carryHeld.merge(itemId, -quantity, Integer::sum);
+                if (committed) carryOver.merge(itemId, quantity, Integer::sum);
+                return;
+            }
+            current.held.add(-quantity);
+            if (committed) current.pending.add(quantity);
+            else current.available.addAndGet(quantity);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // 지금 카운터에 available / pending 을 더한다. (바꾸는 중이면 새 카운터가 올라올 때까지 다시)
+    private void adjust(Long itemId, int availableDelta, int pendingDelta) {
+        while (true) {
+            ItemStock stock = current(itemId);
+            if (stock.pending.add(pendingDelta)) {
+                stock.available.addAndGet(availableDelta);
+                return;
+            }
+        }
+    }
+
+    /*
+    관리자가 재고를 직접 수정하면 (ItemService.updateItem) DB 값이 기준이 되니까 메모리 카운터를 새로 만든다.
+    다음 예약 때 DB 에서 다시 읽어오고, 아직 flush 안된 차감량 / 끝나지 않은 예약량은 새 카운터로 넘긴다.
+     */
+    public void reset(Long itemId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    replace(itemId);
+                }
+            });
+        } else {
+            replace(itemId);
+        }
+    }
+
+    private void replace(Long itemId) {
+        flushLock.lock(); // flush 가 이미 꺼내간 차감량은 DB 에 커밋된 다음에 (새 카운터가 읽는 DB 값에 들어가도록)
+        try {
+            ItemStock old = stocks.remove(itemId);
+            if (old == null) return;
+            int pending = old.pending.retire();
+            int held = old.held.retire();
+            if (pending != 0) carryOver.merge(itemId, pending, Integer::sum);
+            if (held != 0) carryHeld.merge(itemId, held, Integer::sum);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public int getAvailable(Long itemId) {
+        return current(itemId).available.get();
+    }
+
+    private ItemStock current(Long itemId) {
+        while (true) {
+            ItemStock stock = stocks.get(itemId);
+            if (stock == null) stock = loadStock(itemId);
+            if (!stock.isRetired()) return stock;
+            Thread.onSpinWait(); // 그 사이 reset 으로 바뀐 카운터 -> 다시 읽는다.
+        }
+    }
+
+    /*
+    모아둔 차감량을 batch update 로 DB 에 반영
+    DB 커넥션을 먼저 잡고 flushLock 을 잡는다. (loadStock 도 같은 순서)
+    락을 잡고 커넥션을 기다리면, 커넥션을 든 채 락을 기다리는 주문 트랜잭션(afterCompletion) 들과 서로 기다리다 풀이 바닥난다.
+    락은 커밋이 끝날 때까지 유지한다. (꺼내간 차감량이 커밋되기 전의 DB 값을 새 카운터가 읽지 않게)
+     */
+    @Scheduled(fixedDelayString = "${jpashop.stock.reservation.flush-interval-ms:200}")
+    public void flush() {
+        if (!enabled || !hasPending()) return;
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                flushLock.lock();
+                List<Object[]> args = new ArrayList<>();
+                List<Object[]> carried = new ArrayList<>();
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        try {
+                            if (status == STATUS_COMMITTED) {
+                                // JDBC 로 직접 바꿨으니 2차 캐시에 남아있는 예전 재고는 지운다.
+                                args.forEach(arg -> emf.getCache().evict(Item.class, arg[1]));
+                                carried.forEach(arg -> emf.getCache().evict(Item.class, arg[1]));
+                            } else {
+                                // 실패한 차감량은 다음 flush 때 다시 반영 (flushLock 을 잡고 있어서 그 사이 카운터가 바뀌지 않는다)
+                                args.forEach(arg -> stocks.get((Long) arg[1]).pending.add((Integer) arg[0]));
+                                carried.forEach(arg -> carryOver.merge((Long) arg[1], (Integer) arg[0], Integer::sum));
+                            }
+                        } finally {
+                            flushLock.unlock();
+                        }
+                    }
+                });
+
+                stocks.forEach((itemId, stock) -> {
+                    int delta = stock.pending.drain();
+                    if (delta != 0) args.add(new Object[]{delta, itemId});
+                });
+                // 카운터가 다시 올라오기 전에 넘겨받은 차감량도 같이 (안 그러면 다음 주문이 올 때까지 DB 에 반영이 안 된다)
+                carryOver.keySet().forEach(itemId -> {
+                    Integer delta = carryOver.remove(itemId);
+                    if (delta != null && delta != 0) carried.add(new Object[]{delta, itemId});
+                });
+                jdbcTemplate.batchUpdate("UPDATE item SET stock_quantity = stock_quantity - ?, version = version + 1 WHERE item_id = ?", args);
+                jdbcTemplate.batchUpdate("UPDATE item SET stock_quantity = stock_quantity - ?, version = version + 1 WHERE item_id = ?", carried);
+            });
+        } catch (RuntimeException e) {
+            log.warn("stock flush failed, retry next time", e);
+        }
+    }
+
+    // 반영할 차감량이 있는지 (락 없이 대충 본다. 놓치면 다음 flush 때)
+    private boolean hasPending() {
+        if (!carryOver.isEmpty()) return true;
+        for (ItemStock stock : stocks.values()) {
+            if (stock.pending.get() != 0) return true;
+        }
+        return false;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /*
+    DB 재고 - 예전 카운터에서 넘겨받은 차감량 / 예약량으로 새 카운터를 올린다.
+    flush 와 겹치지 않게 (꺼내간 차감량을 빼먹거나 두번 빼지 않게) flushLock 안에서, 커넥션은 그 전에 (주문 트랜잭션이면 그 커넥션)
+     */
+    private ItemStock loadStock(Long itemId) {
+        return transactionTemplate.execute(status -> {
+            flushLock.lock();
+            try {
+                ItemStock loaded = stocks.get(itemId);
+                if (loaded != null) return loaded; // 다른 스레드가 먼저 올렸다.
+                Integer quantity = jdbcTemplate.queryForObject(
+                        "SELECT stock_quantity FROM item WHERE item_id = ?", Integer.class, itemId);
+                int pending = orZero(carryOver.remove(itemId));
+                int held = orZero(carryHeld.remove(itemId));
+                ItemStock stock = new ItemStock(quantity - pending - held, pending, held);
+                stocks.put(itemId, stock);
+                return stock;
+            } finally {
+                flushLock.unlock();
+            }
+        });
+    }
+
+    private static int orZero(Integer value) {
+        return value == null ? 0 : value;
+    }
+
+    private static class ItemStock {
+        private final AtomicInteger available; // 지금 주문 가능한 재고
+        private final RetirableCounter pending; // 아직 DB 에 반영 안된 차감량
+        private final RetirableCounter held; // 차감했지만 트랜잭션이 아직 안 끝난 예약량
+
+        ItemStock(int available, int pending, int held) {
+            this.available = new AtomicInteger(available);
+            this.pending = new RetirableCounter(pending);
+            this.held = new RetirableCounter(held);
+        }
+
+        boolean isRetired() {
+            return pending.isRetired();
+        }
+    }
+
+    // reset 되면 막히는 카운터 -> 막힌 뒤에는 더하지 않고 false (호출한 쪽이 지금 카운터에서 다시)
+    private static class RetirableCounter {
+        private static final int RETIRED = Integer.MIN_VALUE;
+
+        private final AtomicInteger value;
+
+        RetirableCounter(int initial) {
+            this.value = new AtomicInteger(initial);
+        }
+
+        int get() {
+            return value.get();
+        }
+
+        boolean add(int delta) {
+            while (true) {
+                int current = value.get();
+                if (current == RETIRED) return false;
+                if (value.compareAndSet(current, current + delta)) return true;
+            }
+        }
+
+        int drain() {
+            while (true) {
+                int current = value.get();
+                if (current == RETIRED) return 0;
+                if (value.compareAndSet(current, 0)) return current;
+            }
+        }
+
+        // 더 이상 받지 않게 막고, 남아있던 값을 돌려준다. (이미 막혀있으면 0)
+        int retire() {
+            int current = value.getAndSet(RETIRED);
+            return current == RETIRED ? 0 : current;
+        }
+
+        boolean isRetired() {
+            return value.get() == RETIRED;
+        }
+    }
+}
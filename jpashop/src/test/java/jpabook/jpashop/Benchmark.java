@@ -0,0 +1,9 @@
+package jpabook.jpashop;
+
+/*
+처리량 / 할당량을 재는 벤치마크 표시용 (JUnit4 @Category)
+vintage 엔진이 category 를 클래스 이름 태그로 넘겨주니까 기본 test 에서는 빠지고 ./gradlew benchmark 로만 돈다.
+수치는 출력만 하고 비교하지 않는다. (돌리는 장비 상태에 따라 달라짐)
+ */
+public interface Benchmark {
+}
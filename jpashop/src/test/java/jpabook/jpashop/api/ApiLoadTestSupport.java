@@ -0,0 +1,129 @@
+package jpabook.jpashop.api;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+동시 접속 부하 테스트 공통 코드 (플랫폼 스레드 / 가상 스레드 비교)
+클라이언트 수만큼 가상 스레드를 만들어서 한번에 요청을 보내고 처리량, 응답 시간, 실패 수, 사용된 최대 커넥션 수를 출력한다.
+클라이언트와 서버가 같은 JVM 에서 CPU 를 나눠 쓰니까 절대값보다는 두 모드의 차이를 보는 용도
+LOAD_CLIENTS 환경 변수가 있을 때만 실행한다. (LOAD_CLIENTS=1000,5000,10000 gradle test --tests '*ThreadLoadTest')
+ */
+public abstract class ApiLoadTestSupport {
+
+    private static final String LOAD_CLIENTS = System.getenv("LOAD_CLIENTS");
+    // 동시 클라이언트 수 (쉼표로 구분)
+    protected static final int[] CLIENTS = LOAD_CLIENTS == null ? new int[0] : Arrays.stream(LOAD_CLIENTS.split(","))
+            .mapToInt(c -> Integer.parseInt(c.trim()))
+            .toArray();
+    protected static final String PATH = "/api/v4/simple-orders"; // 요청마다 DB 조회 1번
+
+    @LocalServerPort int port;
+    @Autowired DataSource dataSource;
+
+    // 스프링 컨텍스트(RANDOM_PORT) 를 띄우기 전에 건너뛴다.
+    @BeforeClass
+    public static void requireLoadClients() {
+        Assume.assumeTrue("LOAD_CLIENTS 가 없으면 부하 테스트는 건너뛴다.", LOAD_CLIENTS != null);
+    }
+
+    protected LoadResult load(String label, int clients) throws Exception {
+        LoadResult result = run(clients);
+        System.out.printf("[api-load] %-8s clients=%d req/s=%.0f p50=%dms p99=%dms max=%dms errors=%d clientErrors=%d peakConnections=%d/%d%n",
+                label, result.clients(), result.throughput(), result.p50Ms(), result.p99Ms(), result.maxMs(),
+                result.errors(), result.clientErrors(), result.peakConnections(), result.poolSize());
+        return result;
+    }
+
+    // 먼저 실행한 쪽만 JIT 워밍업 비용을 내지 않게 측정 전에 한번 돌린다.
+    protected void warmUp() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            run(500);
+        }
+    }
+
+    private LoadResult run(int clients) throws Exception {
+        HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+        HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + PATH))
+                .timeout(Duration.ofSeconds(60))
+                .GET().build();
+
+        long[] latencies = new long[clients];
+        AtomicInteger errors = new AtomicInteger(); // 서버가 200 이 아닌 응답을 준 경우
+        AtomicInteger clientErrors = new AtomicInteger(); // 클라이언트가 요청을 못 보낸 경우 (같은 JVM 이라 파일 디스크립터 한도 등)
+        AtomicInteger peakActive = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        // 요청이 도는 동안 사용 중인 커넥션 수를 계속 확인
+        Thread sampler = Thread.ofVirtual().start(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                peakActive.accumulateAndGet(pool.getActiveConnections(), Math::max);
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+
+        long begin;
+        try (ExecutorService clientThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                int index = i;
+                clientThreads.submit(() -> {
+                    start.await();
+                    long sent = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() != 200) errors.incrementAndGet();
+                    } catch (Exception e) {
+                        clientErrors.incrementAndGet();
+                    }
+                    latencies[index] = System.nanoTime() - sent;
+                    return null;
+                });
+            }
+            begin = System.nanoTime();
+            start.countDown();
+        } // close() 는 모든 요청이 끝날 때까지 기다린다.
+        double seconds = (System.nanoTime() - begin) / 1_000_000_000.0;
+        sampler.interrupt();
+        sampler.join();
+        client.close();
+
+        Arrays.sort(latencies);
+        return new LoadResult(clients, clients / seconds,
+                percentileMs(latencies, 50), percentileMs(latencies, 99), latencies[clients - 1] / 1_000_000,
+                errors.get(), clientErrors.get(), peakActive.get(), hikari.getMaximumPoolSize());
+    }
+
+    private long percentileMs(long[] sorted, int percentile) {
+        int index = Math.min(sorted.length - 1, sorted.length * percentile / 100);
+        return sorted[index] / 1_000_000;
+    }
+
+    protected record LoadResult(int clients, double throughput, long p50Ms, long p99Ms, long maxMs,
+                                int errors, int clientErrors, int peakConnections, int poolSize) {
+    }
+}
@@ -0,0 +1,73 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.api.OrderApiController.CursorResult;
+import jpabook.jpashop.api.OrderApiController.OrderDto;
+import jpabook.jpashop.repository.OrderRepository;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+v3.2 keyset 페이징 API 의 limit / cursor / nextCursor 경계 테스트
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+public class OrderCursorApiTest {
+
+    @Autowired MockMvc mockMvc;
+    @Autowired OrderApiController orderApiController;
+    @Autowired OrderRepository orderRepository;
+
+    @Test
+    public void invalidLimit() throws Exception {
+        mockMvc.perform(get("/api/v3.2/orders").param("limit", "0")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v3.2/orders").param("limit", "-1")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v3.2/orders").param("limit", "1001")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v3.2/orders").param("limit", String.valueOf(Integer.MAX_VALUE))).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v3.2/orders").param("limit", "1")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/v3.2/orders").param("limit", "1000")).andExpect(status().isOk());
+    }
+
+    @Test
+    public void invalidCursor() throws Exception {
+        String valid = orderApiController.ordersV3_cursor(null, 1).getNextCursor();
+        assertNotNull(valid);
+
+        mockMvc.perform(get("/api/v3.2/orders").param("cursor", "not-a-cursor")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v3.2/orders").param("cursor", valid.substring(0, valid.length() / 2))).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v3.2/orders").param("cursor", valid)).andExpect(status().isOk());
+    }
+
+    @Test
+    public void lastPageWithExactlyLimitRows() throws Exception {
+        // given (InitDb 가 주문을 넣어둔다)
+        int total = orderRepository.findAllWithMemberDelivery().size();
+        assertTrue(total >= 2);
+
+        // when
+        CursorResult<List<OrderDto>> all = orderApiController.ordersV3_cursor(null, total);
+        CursorResult<List<OrderDto>> first = orderApiController.ordersV3_cursor(null, total - 1);
+        CursorResult<List<OrderDto>> last = orderApiController.ordersV3_cursor(first.getNextCursor(), 1);
+
+        // then
+        assertEquals(total, all.getData().size());
+        assertNull("딱 limit 건으로 끝나면 다음 커서가 없다.", all.getNextCursor());
+        assertEquals(total - 1, first.getData().size());
+        assertNotNull(first.getNextCursor());
+        assertEquals(1, last.getData().size());
+        assertNull(last.getNextCursor());
+    }
+}
@@ -0,0 +1,164 @@
+package jpabook.jpashop.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.hibernate5.jakarta.Hibernate5JakartaModule;
+import jpabook.jpashop.api.OrderApiController.OrderDto;
+import jpabook.jpashop.domain.*;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.order.query.OrderItemQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryDto;
+import jpabook.jpashop.Benchmark;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/*
+OrderJsonModule 이 기본 직렬화(BeanSerializer + Hibernate5JakartaModule) 와 같은 JSON 을 만드는지, 얼마나 빠른지
+before : OrderJsonModule 없이 스프링 부트와 같은 설정으로 만든 ObjectMapper
+after  : 컨텍스트의 ObjectMapper (OrderJsonModule 등록됨)
+(할당량은 ThreadMXBean 의 스레드별 할당 바이트로 측정, 속도 비교는 ./gradlew benchmark 에서만 돌고 출력만 한다.)
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class OrderJsonModuleTest {
+
+    private static final int ORDER_COUNT = 2_000;
+    private static final int ITEMS_PER_ORDER = 3;
+    private static final int ROUNDS = 20;
+
+    @Autowired ObjectMapper objectMapper;
+
+    ObjectMapper moduleMapper = Jackson2ObjectMapperBuilder.json()
+            .modulesToInstall(new Hibernate5JakartaModule())
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    @Test
+    public void registered() throws Exception {
+        assertTrue(objectMapper.getRegisteredModuleIds().contains("OrderJsonModule"));
+        assertFalse(moduleMapper.getRegisteredModuleIds().contains("OrderJsonModule"));
+    }
+
+    @Test
+    public void sameJsonAsBeanSerializer() throws Exception {
+        assertSameJson(orderDtos());
+        assertSameJson(queryDtos());
+        assertSameJson(simpleDtos());
+        assertSameJson(new OrderApiController.CursorResult<>(orderDtos().subList(0, 3), "next"));
+
+        // null 필드
+        assertSameJson(new OrderSimpleQueryDto(null, null, null, null, null));
+        assertSameJson(new OrderQueryDto(1L, "userA", null, OrderStatus.ORDER, null));
+        assertSameJson(new OrderQueryDto(2L, "userA", LocalDateTime.of(12345, 1, 2, 3, 4), OrderStatus.ORDER, null)); // formatter 로 넘기는 연도
+    }
+
+    @Test
+    @Category(Benchmark.class)
+    public void serializationBenchmark() throws Exception {
+        List<OrderDto> orderDtos = orderDtos();
+        List<OrderQueryDto> queryDtos = queryDtos();
+
+        measure("v3 module", moduleMapper, orderDtos);
+        measure("v3 streaming", objectMapper, orderDtos);
+        measure("v5 module", moduleMapper, queryDtos);
+        measure("v5 streaming", objectMapper, queryDtos);
+    }
+
+    // 주문 ORDER_COUNT 건을 ROUNDS 번 직렬화 -> 처리량과 주문 1건당 할당 바이트를 출력한다.
+    private void measure(String label, ObjectMapper mapper, Object orders) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        for (int i = 0; i < ROUNDS; i++) {
+            mapper.writeValue(OutputStream.nullOutputStream(), orders); // 워밍업 (writeValue 가 스트림을 닫아서 매번 새로)
+        }
+
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long begin = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            mapper.writeValue(OutputStream.nullOutputStream(), orders);
+        }
+        long nanos = System.nanoTime() - begin;
+        long bytes = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        long total = (long) ORDER_COUNT * ROUNDS;
+        System.out.printf("[order-json] %-13s orders/s=%.0f bytes/order=%d%n",
+                label, total / (nanos / 1_000_000_000.0), bytes / total);
+    }
+
+    private void assertSameJson(Object value) throws Exception {
+        assertEquals(moduleMapper.writeValueAsString(value), objectMapper.writeValueAsString(value));
+    }
+
+    private List<OrderDto> orderDtos() {
+        Member member = new Member();
+        member.setName("회원 \"A\"");
+        member.setAddress(new Address("서울", "강가\n1", "123-123"));
+        Book book1 = book("JPA1 BOOK", 10000);
+        Book book2 = book("JPA2 BOOK", 20000);
+        Book book3 = book("스프링 \\ BOOK", 30000);
+
+        List<OrderDto> result = new ArrayList<>();
+        for (int i = 0; i < ORDER_COUNT; i++) {
+            Delivery delivery = new Delivery();
+            delivery.setAddress(member.getAddress());
+            Order order = Order.createOrder(member, delivery,
+                    OrderItem.createOrderItem(book1, book1.getPrice(), 1),
+                    OrderItem.createOrderItem(book2, book2.getPrice(), 2),
+                    OrderItem.createOrderItem(book3, book3.getPrice(), 3));
+            order.setId((long) i);
+            order.setOrderDate(orderDate(i));
+            result.add(new OrderDto(order));
+        }
+        return result;
+    }
+
+    private List<OrderQueryDto> queryDtos() {
+        List<OrderQueryDto> result = new ArrayList<>();
+        for (long i = 0; i < ORDER_COUNT; i++) {
+            List<OrderItemQueryDto> items = new ArrayList<>();
+            for (int j = 0; j < ITEMS_PER_ORDER; j++) {
+                items.add(new OrderItemQueryDto(i, "JPA" + j + " BOOK", 10000 * (j + 1), j + 1));
+            }
+            result.add(new OrderQueryDto(i, "userA", orderDate((int) i), OrderStatus.ORDER,
+                    new Address("서울", "강가", "123-123"), items));
+        }
+        return result;
+    }
+
+    private List<OrderSimpleQueryDto> simpleDtos() {
+        List<OrderSimpleQueryDto> result = new ArrayList<>();
+        for (long i = 0; i < 10; i++) {
+            result.add(new OrderSimpleQueryDto(i, "userA", orderDate((int) i), OrderStatus.CANCEL,
+                    new Address("서울", "강가", "123-123")));
+        }
+        return result;
+    }
+
+    // 나노초 자리수가 다른 경우도 같은 형식으로 나오는지 (0, 밀리초, 마이크로초)
+    private LocalDateTime orderDate(int i) {
+        int[] nanos = {0, 123_000_000, 123_400_000, 123_456_789};
+        return LocalDateTime.of(2024, 1, 2, 3, 4, 5, nanos[i % nanos.length]).plusMinutes(i);
+    }
+
+    private Book book(String name, int price) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(price);
+        book.setStockQuantity(Integer.MAX_VALUE);
+        return book;
+    }
+}
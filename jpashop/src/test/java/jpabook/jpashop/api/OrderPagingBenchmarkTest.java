@@ -0,0 +1,133 @@
+package jpabook.jpashop.api;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.Benchmark;
+import jpabook.jpashop.domain.*;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.function.IntSupplier;
+
+import static org.junit.Assert.*;
+
+/*
+컬렉션 조회 방식별로 전체 주문을 한바퀴 도는데 드는 쿼리 수와 시간을 비교하는 통합 벤치마크
+v3.1 : 엔티티 페이징 + default_batch_fetch_size
+v5   : DTO 직접 조회 + in 쿼리 (페이징 없음)
+v6.1 : 주문 id 페이징 + flat 조인
+세 방식이 같은 주문을 돌려주는지는 기본 test 에서, 쿼리 수 / 시간 출력은 ./gradlew benchmark 에서만 본다.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class OrderPagingBenchmarkTest {
+
+    private static final int ORDER_COUNT = 300;
+    private static final int PAGE_SIZE = 50;
+
+    @Autowired EntityManager em;
+    @Autowired OrderApiController orderApiController;
+
+    Statistics statistics;
+    boolean statisticsEnabled;
+
+    @Before
+    public void setUp() {
+        Member member = new Member();
+        member.setName("bench");
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        em.persist(member);
+
+        Book[] books = new Book[3];
+        for (int i = 0; i < books.length; i++) {
+            books[i] = new Book();
+            books[i].setName("BENCH BOOK" + i);
+            books[i].setPrice(10000 * (i + 1));
+            books[i].setStockQuantity(Integer.MAX_VALUE);
+            em.persist(books[i]);
+        }
+        for (int i = 0; i < ORDER_COUNT; i++) {
+            Delivery delivery = new Delivery();
+            delivery.setAddress(member.getAddress());
+            em.persist(Order.createOrder(member, delivery,
+                    OrderItem.createOrderItem(books[0], books[0].getPrice(), 1),
+                    OrderItem.createOrderItem(books[1], books[1].getPrice(), 2),
+                    OrderItem.createOrderItem(books[2], books[2].getPrice(), 3)));
+        }
+        em.flush();
+        em.clear();
+
+        statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statisticsEnabled = statistics.isStatisticsEnabled();
+    }
+
+    @After
+    public void tearDown() {
+        statistics.setStatisticsEnabled(statisticsEnabled); // 같은 컨텍스트를 쓰는 다른 테스트에 남지 않게
+    }
+
+    @Test
+    public void samePagedOrders() throws Exception {
+        int v5 = orderApiController.ordersV5().size();
+        em.clear();
+        assertEquals(v5, countV31());
+        em.clear();
+        assertEquals(v5, countV61());
+
+        // 페이지 경계에서 주문이 잘리지 않고, 주문상품이 모두 붙어 있어야 한다.
+        List<OrderQueryDto> page = orderApiController.ordersV6_page(0, PAGE_SIZE);
+        assertEquals(PAGE_SIZE, page.size());
+        page.stream()
+                .filter(o -> o.getName().equals("bench"))
+                .forEach(o -> assertEquals(3, o.getOrderItems().size()));
+    }
+
+    @Test
+    @Category(Benchmark.class)
+    public void compareCollectionPaging() throws Exception {
+        statistics.setStatisticsEnabled(true);
+        measure("v3.1", this::countV31);
+        measure("v5", () -> orderApiController.ordersV5().size());
+        measure("v6.1", this::countV61);
+    }
+
+    private int countV31() {
+        int total = 0;
+        for (int offset = 0; ; offset += PAGE_SIZE) {
+            int size = orderApiController.ordersV3_page(offset, PAGE_SIZE).size();
+            total += size;
+            if (size < PAGE_SIZE) return total;
+        }
+    }
+
+    private int countV61() {
+        int total = 0;
+        for (int offset = 0; ; offset += PAGE_SIZE) {
+            int size = orderApiController.ordersV6_page(offset, PAGE_SIZE).size();
+            total += size;
+            if (size < PAGE_SIZE) return total;
+        }
+    }
+
+    private void measure(String name, IntSupplier body) {
+        em.clear();
+        statistics.clear();
+        long start = System.nanoTime();
+        int orders = body.getAsInt();
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("[%s] orders=%d queries=%d time=%.2fms%n",
+                name, orders, statistics.getPrepareStatementCount(), elapsed / 1_000_000.0);
+    }
+}
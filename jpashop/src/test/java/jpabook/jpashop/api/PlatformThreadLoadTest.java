@@ -0,0 +1,40 @@
+package jpabook.jpashop.api;
+
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static org.junit.Assert.*;
+
+// 기본 설정 (톰캣 플랫폼 스레드 최대 200개) 으로 동시 접속 부하 테스트 -> VirtualThreadLoadTest 와 비교
+// 커넥션 풀 / 톰캣 접속 수는 application-virtual.yml 과 맞춰서 요청 스레드 종류만 다르게 한다.
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.hikari.maximum-pool-size=20",
+        "spring.datasource.hikari.connection-timeout=30000",
+        "server.tomcat.max-connections=20000",
+        "server.tomcat.accept-count=1000",
+        "decorator.datasource.p6spy.enable-logging=false",
+        "logging.level.org.hibernate.SQL=info",
+        "logging.level.org.hibernate.orm.jdbc.bind=info"
+})
+public class PlatformThreadLoadTest extends ApiLoadTestSupport {
+
+    @Autowired ServletWebServerApplicationContext context;
+
+    @Test
+    public void platformThreadLoad() throws Exception {
+        TomcatWebServer webServer = (TomcatWebServer) context.getWebServer();
+        assertFalse(webServer.getTomcat().getConnector().getProtocolHandler().getExecutor() instanceof VirtualThreadExecutor);
+
+        warmUp();
+        for (int clients : CLIENTS) {
+            load("platform", clients);
+        }
+    }
+}
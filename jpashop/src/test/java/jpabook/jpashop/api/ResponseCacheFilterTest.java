@@ -0,0 +1,206 @@
+package jpabook.jpashop.api;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OrderService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.Assert.*;
+
+/*
+주문 목록 응답 캐시 / ETag 테스트
+커밋이 되어야 카운터가 올라가니까 @Transactional 을 붙이지 않는다.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "jpashop.response-cache.enabled=true")
+@AutoConfigureMockMvc
+public class ResponseCacheFilterTest {
+
+    private static final int POLLS = 200;
+
+    @Autowired MockMvc mockMvc;
+    @Autowired EntityManager em;
+    @Autowired EntityManagerFactory emf;
+    @Autowired TransactionTemplate transactionTemplate;
+    @Autowired ResponseCacheFilter responseCacheFilter;
+    @Autowired OrderService orderService;
+    @Autowired ItemService itemService;
+    @Autowired MemberService memberService;
+
+    Statistics statistics;
+    boolean statisticsEnabled;
+
+    Member member;
+    Book book;
+
+    @Before
+    public void setUp() {
+        responseCacheFilter.invalidateAll();
+        transactionTemplate.executeWithoutResult(status -> {
+            member = new Member();
+            member.setName("etag" + System.nanoTime());
+            member.setAddress(new Address("서울", "강가", "123-123"));
+            em.persist(member);
+            book = new Book();
+            book.setName("ETAG BOOK");
+            book.setPrice(10000);
+            book.setStockQuantity(1000);
+            em.persist(book);
+        });
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statisticsEnabled = statistics.isStatisticsEnabled();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @After
+    public void tearDown() {
+        statistics.setStatisticsEnabled(statisticsEnabled); // 같은 컨텍스트를 쓰는 다른 테스트에 남지 않게
+    }
+
+    @Test
+    public void notModifiedWithoutQuery() throws Exception {
+        // given
+        MockHttpServletResponse first = get("/api/v5/orders", null);
+        String etag = first.getHeader(HttpHeaders.ETAG);
+        assertEquals(200, first.getStatus());
+        assertNotNull(etag);
+
+        // when
+        statistics.clear();
+        MockHttpServletResponse polled = get("/api/v5/orders", etag);
+        MockHttpServletResponse cached = get("/api/v5/orders", null);
+
+        // then
+        assertEquals(304, polled.getStatus());
+        assertEquals(0, polled.getContentAsByteArray().length);
+        assertEquals(200, cached.getStatus());
+        assertEquals(etag, cached.getHeader(HttpHeaders.ETAG));
+        assertEquals(first.getContentAsString(), cached.getContentAsString());
+        assertEquals("304 / 캐시 응답은 쿼리를 날리지 않는다.", 0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void orderInvalidates() throws Exception {
+        // given
+        String etag = get("/api/v4/simple-orders", null).getHeader(HttpHeaders.ETAG);
+
+        // when
+        Long orderId = orderService.order(member.getId(), book.getId(), 1);
+
+        // then
+        MockHttpServletResponse after = get("/api/v4/simple-orders", etag);
+        assertEquals(200, after.getStatus());
+        assertNotEquals(etag, after.getHeader(HttpHeaders.ETAG));
+        assertTrue(after.getContentAsString().contains("\"orderId\":" + orderId));
+
+        // when
+        etag = after.getHeader(HttpHeaders.ETAG);
+        orderService.cancelOrder(orderId);
+
+        // then
+        assertEquals(200, get("/api/v4/simple-orders", etag).getStatus());
+    }
+
+    @Test
+    public void itemAndMemberInvalidate() throws Exception {
+        orderService.order(member.getId(), book.getId(), 1);
+        String etag = get("/api/v5/orders", null).getHeader(HttpHeaders.ETAG);
+
+        itemService.updateItem(book.getId(), "ETAG BOOK RENAMED", 10000, 1000);
+        MockHttpServletResponse afterItem = get("/api/v5/orders", etag);
+        assertEquals(200, afterItem.getStatus());
+        assertTrue(afterItem.getContentAsString().contains("ETAG BOOK RENAMED"));
+
+        etag = afterItem.getHeader(HttpHeaders.ETAG);
+        memberService.update(member.getId(), member.getName() + "-renamed");
+        MockHttpServletResponse afterMember = get("/api/v5/orders", etag);
+        assertEquals(200, afterMember.getStatus());
+        assertTrue(afterMember.getContentAsString().contains(member.getName() + "-renamed"));
+
+        // simple-orders 에는 상품이 안 나가니까 상품 변경으로는 무효화되지 않는다.
+        String simpleEtag = get("/api/v4/simple-orders", null).getHeader(HttpHeaders.ETAG);
+        itemService.updateItem(book.getId(), "ETAG BOOK", 10000, 1000);
+        assertEquals(304, get("/api/v4/simple-orders", simpleEtag).getStatus());
+    }
+
+    @Test
+    public void rollbackKeepsVersion() throws Exception {
+        String etag = get("/api/v3/orders", null).getHeader(HttpHeaders.ETAG);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            orderService.order(member.getId(), book.getId(), 1);
+            status.setRollbackOnly();
+        });
+
+        assertEquals(304, get("/api/v3/orders", etag).getStatus());
+    }
+
+    @Test
+    public void queryParamsAreSeparateEntries() throws Exception {
+        String page1 = get("/api/v3.1/orders?offset=0&limit=1", null).getContentAsString();
+        String page2 = get("/api/v3.1/orders?offset=1&limit=1", null).getContentAsString();
+        assertNotEquals(page1, page2);
+
+        long hits = responseCacheFilter.getHits();
+        assertEquals(page2, get("/api/v3.1/orders?offset=1&limit=1", null).getContentAsString());
+        assertEquals(hits + 1, responseCacheFilter.getHits());
+    }
+
+    @Test
+    public void pollingBenchmark() throws Exception {
+        for (int i = 0; i < 50; i++) {
+            get("/api/v5/orders", null); // 워밍업
+        }
+
+        long misses = responseCacheFilter.getMisses();
+        statistics.clear();
+        long begin = System.nanoTime();
+        for (int i = 0; i < POLLS; i++) {
+            responseCacheFilter.invalidateAll(); // 매번 새로 조회 + 직렬화 (캐시 없을 때)
+            get("/api/v5/orders", null);
+        }
+        long uncachedNanos = System.nanoTime() - begin;
+        long uncachedStatements = statistics.getPrepareStatementCount();
+        assertEquals(misses + POLLS, responseCacheFilter.getMisses());
+
+        String etag = get("/api/v5/orders", null).getHeader(HttpHeaders.ETAG);
+        statistics.clear();
+        begin = System.nanoTime();
+        for (int i = 0; i < POLLS; i++) {
+            assertEquals(304, get("/api/v5/orders", etag).getStatus());
+        }
+        long notModifiedNanos = System.nanoTime() - begin;
+
+        System.out.printf("[response-cache] polls=%d uncached=%.3fms/req statements=%d 304=%.3fms/req statements=%d%n",
+                POLLS, uncachedNanos / 1_000_000.0 / POLLS, uncachedStatements,
+                notModifiedNanos / 1_000_000.0 / POLLS, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertTrue(notModifiedNanos < uncachedNanos);
+    }
+
+    private MockHttpServletResponse get(String url, String ifNoneMatch) throws Exception {
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get(url);
+        if (ifNoneMatch != null) request.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        return mockMvc.perform(request).andReturn().getResponse();
+    }
+}
@@ -0,0 +1,40 @@
+package jpabook.jpashop.api;
+
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static org.junit.Assert.*;
+
+// virtual 프로파일 (요청을 가상 스레드에서 처리, 동시성은 커넥션 풀만 제한) 로 동시 접속 부하 테스트
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "decorator.datasource.p6spy.enable-logging=false",
+        "logging.level.org.hibernate.SQL=info",
+        "logging.level.org.hibernate.orm.jdbc.bind=info"
+})
+@ActiveProfiles("virtual")
+public class VirtualThreadLoadTest extends ApiLoadTestSupport {
+
+    @Autowired ServletWebServerApplicationContext context;
+
+    @Test
+    public void virtualThreadLoad() throws Exception {
+        TomcatWebServer webServer = (TomcatWebServer) context.getWebServer();
+        assertTrue(webServer.getTomcat().getConnector().getProtocolHandler().getExecutor() instanceof VirtualThreadExecutor);
+
+        warmUp();
+        for (int clients : CLIENTS) {
+            LoadResult result = load("virtual", clients);
+
+            assertEquals("동시 접속이 많아도 요청은 커넥션을 기다릴 뿐 실패하지 않아야 한다.", 0, result.errors());
+            assertTrue("DB 동시 사용은 커넥션 풀 크기를 넘지 않는다.", result.peakConnections() <= result.poolSize());
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package jpabook.jpashop.repository;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.*;
+import jpabook.jpashop.domain.item.Book;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class OrderRepositoryTest {
+
+    @Autowired EntityManager em;
+    @Autowired OrderRepository orderRepository;
+
+    @Test
+    public void keysetPagingTest() throws Exception {
+        // given
+        Member member = createMember();
+        Book book = createBook("시골 JPA", 10000, 100);
+        for (int i = 0; i < 5; i++) {
+            em.persist(createOrder(member, book));
+        }
+        em.flush();
+        em.clear();
+
+        List<Long> offsetIds = orderRepository.findAllWithMemberDelivery().stream()
+                .map(Order::getId)
+                .toList();
+
+        // when
+        List<Long> keysetIds = new ArrayList<>();
+        OrderCursor cursor = null;
+        while (true) {
+            List<Order> page = orderRepository.findAllWithMemberDelivery(cursor, 2);
+            page.forEach(o -> keysetIds.add(o.getId()));
+            if (page.size() < 2) break;
+            Order last = page.get(page.size() - 1);
+            cursor = OrderCursor.decode(new OrderCursor(last.getOrderDate(), last.getId()).encode());
+        }
+
+        // then
+        assertEquals("keyset 페이징으로 모든 주문을 중복 없이 조회해야 한다.", offsetIds.size(), keysetIds.size());
+        assertTrue(keysetIds.containsAll(offsetIds));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidCursorTest() throws Exception {
+        OrderCursor.decode("not-a-cursor");
+    }
+
+    private Order createOrder(Member member, Book book) {
+        Delivery delivery = new Delivery();
+        delivery.setAddress(member.getAddress());
+        OrderItem orderItem = OrderItem.createOrderItem(book, book.getPrice(), 1);
+        return Order.createOrder(member, delivery, orderItem);
+    }
+
+    private Book createBook(String name, int price, int stockQuantity) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(price);
+        book.setStockQuantity(stockQuantity);
+        em.persist(book);
+        return book;
+    }
+
+    private Member createMember() {
+        Member member = new Member();
+        member.setName("kim1");
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        em.persist(member);
+        return member;
+    }
+}
@@ -0,0 +1,86 @@
+package jpabook.jpashop.repository;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.Benchmark;
+import jpabook.jpashop.domain.Order;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.function.Function;
+
+/*
+주문 검색 방식별 호출당 오버헤드 비교 벤치마크 (./gradlew benchmark, 결과가 같은지는 OrderSearchTest)
+string   : JPQL 문자열 이어붙이기 (OrderSearchVariants.findAllByString)
+criteria : Criteria API (OrderSearchVariants.findAllByCriteria)
+querydsl : Querydsl (OrderSearchVariants.findAllByQuerydsl)
+named    : 검색 모양별로 미리 등록한 named query 에 파라미터만 바인딩 (findAll)
+데이터는 일부러 적게 넣어서 DB 실행 시간보다 쿼리를 만드는 비용이 잘 보이게 한다.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+@Category(Benchmark.class)
+public class OrderSearchBenchmarkTest {
+
+    private static final int WARMUP = 2_000;
+    private static final int ITERATIONS = 10_000;
+
+    @Autowired EntityManager em;
+    @Autowired OrderRepository orderRepository;
+
+    OrderSearchVariants variants;
+    OrderSearch[] searches;
+    Statistics statistics;
+    boolean statisticsEnabled;
+
+    @Before
+    public void setUp() {
+        OrderSearchTest.saveOrders(em);
+        variants = new OrderSearchVariants(em);
+        searches = OrderSearchTest.searches(); // 4가지 검색 모양을 번갈아 가며 호출
+
+        statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statisticsEnabled = statistics.isStatisticsEnabled();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @After
+    public void tearDown() {
+        statistics.setStatisticsEnabled(statisticsEnabled);
+    }
+
+    @Test
+    public void compareSearchOverhead() throws Exception {
+        measure("string", variants::findAllByString);
+        measure("criteria", variants::findAllByCriteria);
+        measure("querydsl", variants::findAllByQuerydsl);
+        measure("named", orderRepository::findAll);
+    }
+
+    private void measure(String label, Function<OrderSearch, List<Order>> searcher) {
+        for (int i = 0; i < WARMUP; i++) {
+            searcher.apply(searches[i % searches.length]);
+        }
+        em.clear();
+        statistics.clear();
+
+        long begin = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            searcher.apply(searches[i % searches.length]);
+        }
+        long nanosPerCall = (System.nanoTime() - begin) / ITERATIONS;
+
+        System.out.printf("[order-search] %-8s calls=%d ns/op=%d planCacheHit=%d planCacheMiss=%d%n",
+                label, ITERATIONS, nanosPerCall, statistics.getQueryPlanCacheHitCount(), statistics.getQueryPlanCacheMissCount());
+    }
+}
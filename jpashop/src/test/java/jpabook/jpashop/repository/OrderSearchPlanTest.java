@@ -0,0 +1,128 @@
+package jpabook.jpashop.repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.seed.DataSeeder;
+import jpabook.jpashop.seed.SeedProperties;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/*
+주문 검색(OrderRepository.findAll) 이 인덱스를 계속 타는지 확인하는 실행계획 회귀 테스트
+hibernate 가 실제로 만든 SQL 을 StatementInspector 로 잡아서 H2 EXPLAIN 을 돌려본다.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "jpabook.jpashop.repository.OrderSearchPlanTest$SqlCapture")
+public class OrderSearchPlanTest {
+
+    private static boolean seeded;
+
+    @Autowired OrderRepository orderRepository;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired TransactionTemplate transactionTemplate;
+    @Autowired EntityManagerFactory emf;
+
+    @Before
+    public void setUp() {
+        if (seeded) return;
+        // 데이터가 거의 없으면 H2 가 그냥 테이블 전체를 읽는게 싸다고 판단하니까 어느정도 채워둔다.
+        SeedProperties properties = new SeedProperties();
+        properties.setMembers(5_000);
+        properties.setItems(100);
+        properties.setCategories(10);
+        properties.setOrders(20_000);
+        properties.setChunkSize(5_000);
+        new DataSeeder(properties, jdbcTemplate, transactionTemplate, emf).seed();
+        jdbcTemplate.execute("ANALYZE"); // 인덱스 선택도 통계 갱신
+        seeded = true;
+    }
+
+    @Test
+    public void nameAndStatusSearchUsesIndex() throws Exception {
+        OrderSearch search = new OrderSearch();
+        search.setMemberName("member12");
+        search.setOrderStatus(OrderStatus.CANCEL);
+
+        String plan = explain(search, "CANCEL", "member12%");
+
+        assertTrue(plan, plan.contains("IDX_MEMBER_NAME"));
+        assertTrue(plan, plan.contains("IDX_ORDERS_MEMBER_STATUS"));
+    }
+
+    @Test
+    public void nameSearchUsesIndex() throws Exception {
+        OrderSearch search = new OrderSearch();
+        search.setMemberName("member12");
+
+        String plan = explain(search, "member12%");
+
+        assertTrue(plan, plan.contains("IDX_MEMBER_NAME"));
+    }
+
+    @Test
+    public void prefixSearchTest() throws Exception {
+        OrderSearch search = new OrderSearch();
+        search.setMemberName("member12");
+
+        List<Order> orders = transactionTemplate.execute(status -> {
+            List<Order> result = orderRepository.findAll(search);
+            result.forEach(o -> assertTrue("이름 앞부분이 같은 회원의 주문만 나와야 한다.",
+                    o.getMember().getName().startsWith("member12")));
+            return result;
+        });
+        assertFalse(orders.isEmpty());
+    }
+
+    // findAll 을 실행해서 잡힌 SQL 에 같은 파라미터를 넣고 EXPLAIN
+    private String explain(OrderSearch search, Object... params) {
+        SqlCapture.clear();
+        transactionTemplate.executeWithoutResult(status -> orderRepository.findAll(search));
+        String sql = SqlCapture.last("from orders");
+
+        List<Object> args = new ArrayList<>(List.of(params));
+        args.add(1000); // limit
+        assertEquals(sql, args.size(), sql.chars().filter(c -> c == '?').count());
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class, args.toArray());
+        System.out.println("[order-search-plan] " + plan.replaceAll("\\s+", " "));
+        return plan;
+    }
+
+    public static class SqlCapture implements StatementInspector {
+
+        private static final List<String> statements = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+
+        static void clear() {
+            statements.clear();
+        }
+
+        static String last(String contains) {
+            synchronized (statements) {
+                for (int i = statements.size() - 1; i >= 0; i--) {
+                    if (statements.get(i).toLowerCase().contains(contains)) return statements.get(i);
+                }
+            }
+            throw new AssertionError("captured sql not found: " + contains);
+        }
+    }
+}
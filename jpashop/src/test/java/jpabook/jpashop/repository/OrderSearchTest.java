@@ -0,0 +1,134 @@
+package jpabook.jpashop.repository;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.*;
+import jpabook.jpashop.domain.item.Book;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/*
+주문 검색(findAll) 이 문자열 / Criteria / Querydsl 버전(OrderSearchVariants) 과 같은 결과를 내는지,
+검색 모양별 named query 를 다시 파싱하지 않는지 확인 (호출당 비용 비교는 OrderSearchBenchmarkTest)
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class OrderSearchTest {
+
+    @Autowired EntityManager em;
+    @Autowired OrderRepository orderRepository;
+
+    OrderSearchVariants variants;
+    Statistics statistics;
+    boolean statisticsEnabled;
+
+    @Before
+    public void setUp() {
+        saveOrders(em);
+        variants = new OrderSearchVariants(em);
+        statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statisticsEnabled = statistics.isStatisticsEnabled();
+    }
+
+    @After
+    public void tearDown() {
+        statistics.setStatisticsEnabled(statisticsEnabled); // 같은 컨텍스트를 쓰는 다른 테스트에 남지 않게
+    }
+
+    @Test
+    public void namedQueryNotReparsed() throws Exception {
+        OrderSearch[] searches = searches();
+        for (OrderSearch search : searches) {
+            orderRepository.findAll(search); // 처음 한번은 plan cache 에 올라간다.
+        }
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        for (OrderSearch search : searches) {
+            orderRepository.findAll(search);
+        }
+
+        assertEquals("미리 등록한 쿼리는 다시 파싱하지 않아야 한다.", 0, statistics.getQueryPlanCacheMissCount());
+    }
+
+    @Test
+    public void sameResultAsVariants() throws Exception {
+        List<OrderSearch> all = new ArrayList<>(List.of(searches()));
+        all.add(search("a_", null)); // escape 도 같게
+        for (OrderSearch search : all) {
+            List<Long> expected = ids(orderRepository.findAll(search));
+            assertEquals(expected, ids(variants.findAllByString(search)));
+            assertEquals(expected, ids(variants.findAllByCriteria(search)));
+            assertEquals(expected, ids(variants.findAllByQuerydsl(search)));
+        }
+    }
+
+    @Test
+    public void escapeWildcardTest() throws Exception {
+        // '_' 는 글자 그대로 검색되어야 한다 -> 'axb' 회원의 주문은 나오면 안됨
+        List<Order> orders = orderRepository.findAll(search("a_", null));
+
+        assertEquals(3, orders.size());
+        orders.forEach(o -> assertEquals("a_b", o.getMember().getName()));
+    }
+
+    // 회원 4명 x 주문 3건 (첫 주문은 취소)
+    static void saveOrders(EntityManager em) {
+        Book book = new Book();
+        book.setName("SEARCH BOOK");
+        book.setPrice(10000);
+        book.setStockQuantity(Integer.MAX_VALUE);
+        em.persist(book);
+
+        String[] names = {"kim", "lee", "a_b", "axb"};
+        for (String name : names) {
+            Member member = new Member();
+            member.setName(name);
+            member.setAddress(new Address("서울", "강가", "123-123"));
+            em.persist(member);
+            for (int i = 0; i < 3; i++) {
+                Delivery delivery = new Delivery();
+                delivery.setAddress(member.getAddress());
+                Order order = Order.createOrder(member, delivery, OrderItem.createOrderItem(book, book.getPrice(), 1));
+                if (i == 0) order.setStatus(OrderStatus.CANCEL);
+                em.persist(order);
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+
+    // 4가지 검색 모양 (조건 없음 / 상태 / 이름 / 상태 + 이름)
+    static OrderSearch[] searches() {
+        return new OrderSearch[]{
+                search(null, null),
+                search(null, OrderStatus.CANCEL),
+                search("kim", null),
+                search("lee", OrderStatus.ORDER)
+        };
+    }
+
+    static OrderSearch search(String memberName, OrderStatus status) {
+        OrderSearch search = new OrderSearch();
+        search.setMemberName(memberName);
+        search.setOrderStatus(status);
+        return search;
+    }
+
+    private List<Long> ids(List<Order> orders) {
+        return orders.stream().map(Order::getId).sorted().toList();
+    }
+}
@@ -0,0 +1,99 @@
+package jpabook.jpashop.repository;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.*;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderStatus;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static jpabook.jpashop.domain.QMember.member;
+import static jpabook.jpashop.domain.QOrder.order;
+
+/*
+OrderRepository.findAll 과 같은 검색을 다른 방법으로 만드는 비교용 구현 (OrderSearchTest, OrderSearchBenchmarkTest)
+요청마다 쿼리를 새로 만든다. 결과는 findAll 과 같아야 하니까 이름은 모두 앞부분 검색 + %, _ escape
+ */
+class OrderSearchVariants {
+
+    private static final int SEARCH_LIMIT = 1000;
+
+    private final EntityManager em;
+    private final JPAQueryFactory query;
+
+    OrderSearchVariants(EntityManager em) {
+        this.em = em;
+        this.query = new JPAQueryFactory(em);
+    }
+
+    // JPQL 문자열 이어붙이기
+    List<Order> findAllByString(OrderSearch orderSearch) {
+        //language=JPAQL
+        String jpql = "select o From Order o join o.member m";
+        boolean isFirstCondition = true;
+        //주문 상태 검색
+        if (orderSearch.getOrderStatus() != null) {
+            jpql += " where o.status = :status";
+            isFirstCondition = false;
+        }
+        //회원 이름 검색
+        if (StringUtils.hasText(orderSearch.getMemberName())) {
+            jpql += (isFirstCondition ? " where" : " and") + " m.name like :name escape '!'";
+        }
+        TypedQuery<Order> query = em.createQuery(jpql, Order.class)
+                .setMaxResults(SEARCH_LIMIT);
+        if (orderSearch.getOrderStatus() != null) {
+            query.setParameter("status", orderSearch.getOrderStatus());
+        }
+        if (StringUtils.hasText(orderSearch.getMemberName())) {
+            query.setParameter("name", OrderSearchShape.prefixPattern(orderSearch.getMemberName()));
+        }
+        return query.getResultList();
+    }
+
+    // Criteria API
+    List<Order> findAllByCriteria(OrderSearch orderSearch) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Order> cq = cb.createQuery(Order.class);
+        Root<Order> o = cq.from(Order.class);
+        Join<Order, Member> m = o.join("member", JoinType.INNER); //회원과 조인
+        List<Predicate> criteria = new ArrayList<>();
+        //주문 상태 검색
+        if (orderSearch.getOrderStatus() != null) {
+            criteria.add(cb.equal(o.get("status"), orderSearch.getOrderStatus()));
+        }
+        //회원 이름 검색
+        if (StringUtils.hasText(orderSearch.getMemberName())) {
+            criteria.add(cb.like(m.get("name"), OrderSearchShape.prefixPattern(orderSearch.getMemberName()), '!'));
+        }
+        cq.where(cb.and(criteria.toArray(new Predicate[0])));
+        return em.createQuery(cq).setMaxResults(SEARCH_LIMIT).getResultList();
+    }
+
+    // Querydsl (startsWith 는 알아서 escape 한다)
+    List<Order> findAllByQuerydsl(OrderSearch orderSearch) {
+        return query
+                .select(order)
+                .from(order)
+                .join(order.member, member)
+                .where(statusEq(orderSearch.getOrderStatus()), nameLike(orderSearch.getMemberName()))
+                .limit(SEARCH_LIMIT)
+                .fetch();
+    }
+
+    private BooleanExpression nameLike(String memberName) {
+        if (!StringUtils.hasText(memberName)) return null;
+        return member.name.startsWith(memberName);
+    }
+
+    private BooleanExpression statusEq(OrderStatus statusCond) {
+        if (statusCond == null) return null;
+        return order.status.eq(statusCond);
+    }
+}
@@ -0,0 +1,141 @@
+package jpabook.jpashop.repository.order.query;
+
+import jpabook.jpashop.Benchmark;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.OrderStatus;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/*
+스프링 없이 도는 단위 테스트
+예전 groupingBy 방식과 결과가 같은지, 그리고 조립할 때 할당하는 메모리가 얼마나 줄었는지 비교
+(할당량은 ThreadMXBean 의 스레드별 할당 바이트로 측정, ./gradlew benchmark 에서만 돌고 출력만 한다.)
+ */
+public class OrderQueryAssemblerTest {
+
+    private static final int ORDER_COUNT = 1_000;
+    private static final int BENCHMARK_ORDER_COUNT = 50_000;
+    private static final int ITEMS_PER_ORDER = 4;
+
+    @Test
+    public void groupFlatSameAsGroupingBy() throws Exception {
+        List<OrderFlatDto> flats = flats(ORDER_COUNT);
+
+        List<OrderQueryDto> expected = groupingBy(flats);
+        List<OrderQueryDto> result = OrderQueryAssembler.groupFlat(flats);
+
+        assertEquals(ORDER_COUNT, result.size());
+        Map<Long, OrderQueryDto> expectedById = expected.stream()
+                .collect(Collectors.toMap(OrderQueryDto::getOrderId, o -> o));
+        for (OrderQueryDto o : result) {
+            OrderQueryDto e = expectedById.get(o.getOrderId());
+            assertEquals(e.getName(), o.getName());
+            assertEquals(e.getOrderItems(), o.getOrderItems());
+        }
+    }
+
+    @Test
+    public void attachItemsSameAsGroupingBy() throws Exception {
+        List<OrderQueryDto> orders = orders(ORDER_COUNT);
+        List<OrderItemQueryDto> items = items(ORDER_COUNT);
+        Map<Long, List<OrderItemQueryDto>> expected = items.stream()
+                .collect(Collectors.groupingBy(OrderItemQueryDto::getOrderId));
+
+        OrderQueryAssembler.attachItems(orders, items);
+
+        for (OrderQueryDto o : orders) {
+            assertEquals(expected.get(o.getOrderId()), o.getOrderItems());
+        }
+    }
+
+    @Test
+    @Category(Benchmark.class)
+    public void allocation() throws Exception {
+        List<OrderFlatDto> flats = flats(BENCHMARK_ORDER_COUNT);
+        List<OrderItemQueryDto> items = items(BENCHMARK_ORDER_COUNT);
+
+        allocated("v6 groupingBy", () -> groupingBy(flats));
+        allocated("v6 index", () -> OrderQueryAssembler.groupFlat(flats));
+        allocated("v5 groupingBy", () -> {
+            List<OrderQueryDto> orders = orders(BENCHMARK_ORDER_COUNT);
+            Map<Long, List<OrderItemQueryDto>> map = items.stream()
+                    .collect(Collectors.groupingBy(OrderItemQueryDto::getOrderId));
+            orders.forEach(o -> o.setOrderItems(map.get(o.getOrderId())));
+            return orders;
+        });
+        allocated("v5 index", () -> {
+            List<OrderQueryDto> orders = orders(BENCHMARK_ORDER_COUNT);
+            OrderQueryAssembler.attachItems(orders, items);
+            return orders;
+        });
+    }
+
+    // 워밍업 후 한번 실행하는 동안 현재 스레드가 할당한 바이트
+    private void allocated(String label, Supplier<Object> work) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        for (int i = 0; i < 5; i++) {
+            work.get();
+        }
+        long before = threads.getThreadAllocatedBytes(threadId);
+        Object result = work.get();
+        long bytes = threads.getThreadAllocatedBytes(threadId) - before;
+        int rows = BENCHMARK_ORDER_COUNT * ITEMS_PER_ORDER;
+        System.out.printf("[order-grouping] %-14s rows=%d allocated=%dKB bytes/row=%d%n",
+                label, rows, bytes / 1024, bytes / rows);
+        assertNotNull(result);
+    }
+
+    // 예전 OrderApiController.ordersV6 의 조립 방식
+    private List<OrderQueryDto> groupingBy(List<OrderFlatDto> flats) {
+        return flats.stream()
+                .collect(Collectors.groupingBy(o -> new OrderQueryDto(
+                                o.getOrderId(), o.getName(), o.getOrderDate(), o.getOrderStatus(), o.getAddress()),
+                        Collectors.mapping(o -> new OrderItemQueryDto(
+                                o.getOrderId(), o.getItemName(), o.getOrderPrice(), o.getCount()), Collectors.toList())))
+                .entrySet().stream()
+                .map(e -> new OrderQueryDto(e.getKey().getOrderId(), e.getKey().getName(), e.getKey().getOrderDate(),
+                        e.getKey().getOrderStatus(), e.getKey().getAddress(), e.getValue()))
+                .collect(Collectors.toList());
+    }
+
+    // 주문 순서와 상관없이 섞인 flat row (db 에서 정렬 없이 온 경우)
+    private List<OrderFlatDto> flats(int orderCount) {
+        Address address = new Address("서울", "강가", "123-123");
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<OrderFlatDto> flats = new ArrayList<>(orderCount * ITEMS_PER_ORDER);
+        for (int item = 0; item < ITEMS_PER_ORDER; item++) {
+            for (long orderId = 1; orderId <= orderCount; orderId++) {
+                flats.add(new OrderFlatDto(orderId, "member" + orderId % 100, now, OrderStatus.ORDER, address,
+                        "item" + item, 1000 * (item + 1), item + 1));
+            }
+        }
+        return flats;
+    }
+
+    private List<OrderQueryDto> orders(int orderCount) {
+        List<OrderQueryDto> orders = new ArrayList<>(orderCount);
+        for (long orderId = 1; orderId <= orderCount; orderId++) {
+            orders.add(new OrderQueryDto(orderId, "member", null, OrderStatus.ORDER, null));
+        }
+        return orders;
+    }
+
+    private List<OrderItemQueryDto> items(int orderCount) {
+        List<OrderItemQueryDto> items = new ArrayList<>(orderCount * ITEMS_PER_ORDER);
+        for (int item = 0; item < ITEMS_PER_ORDER; item++) {
+            for (long orderId = 1; orderId <= orderCount; orderId++) {
+                items.add(new OrderItemQueryDto(orderId, "item" + item, 1000, 1));
+            }
+        }
+        return items;
+    }
+}
@@ -0,0 +1,120 @@
+package jpabook.jpashop.repository.order.query;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+// InitDb 가 넣어주는 주문 2건(주문상품 각 2개)을 기준으로 검증
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class OrderQueryRepositoryTest {
+
+    @Autowired OrderQueryRepository orderQueryRepository;
+
+    @Test
+    public void batchLoaderTest() throws Exception {
+        // given
+        List<OrderQueryDto> expected = orderQueryRepository.findAllByDto_optimization();
+
+        // when
+        List<OrderQueryDto> result = orderQueryRepository.findOrderQueryDtos();
+
+        // then
+        assertEquals(expected.size(), result.size());
+        for (int i = 0; i < result.size(); i++) {
+            assertEquals(expected.get(i).getOrderId(), result.get(i).getOrderId());
+            assertEquals(expected.get(i).getOrderItems(), result.get(i).getOrderItems());
+        }
+    }
+
+    @Test
+    public void streamFlatTest() throws Exception {
+        // given
+        List<OrderQueryDto> expected = orderQueryRepository.findAllByDto_optimization();
+
+        // when
+        List<OrderQueryDto> streamed = new ArrayList<>();
+        orderQueryRepository.streamAllByDto_flat(streamed::add);
+
+        // then
+        assertEquals("주문 단위로 묶여서 나와야 한다.", expected.size(), streamed.size());
+        for (OrderQueryDto o : streamed) {
+            OrderQueryDto e = expected.stream()
+                    .filter(x -> x.getOrderId().equals(o.getOrderId()))
+                    .findFirst().orElseThrow();
+            assertEquals(e.getOrderItems(), o.getOrderItems());
+        }
+    }
+
+    @Test
+    public void columnarTest() throws Exception {
+        // given
+        List<OrderItemQueryDto> expected = orderQueryRepository.findAllByDto_optimization().stream()
+                .flatMap(o -> o.getOrderItems().stream())
+                .toList();
+
+        // when
+        OrderItemColumns columns = orderQueryRepository.findAllOrderItemColumns();
+
+        // then
+        assertEquals(expected.size(), columns.getSize());
+        assertEquals("상품 이름은 사전에 한번씩만", expected.stream().map(OrderItemQueryDto::getItemName).distinct().count(),
+                columns.getItemNames().size());
+        for (int i = 0; i < columns.getSize(); i++) {
+            assertEquals(expected.get(i), new OrderItemQueryDto(columns.getOrderIds()[i],
+                    columns.getItemNames().get(columns.getItemNameIds()[i]),
+                    columns.getOrderPrices()[i], columns.getCounts()[i]));
+        }
+    }
+
+    @Test
+    public void columnarBinaryTest() throws Exception {
+        // given
+        OrderItemColumns columns = orderQueryRepository.findAllOrderItemColumns();
+
+        // when
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        columns.writeBinary(out);
+        OrderItemColumns read = OrderItemColumns.readBinary(new ByteArrayInputStream(out.toByteArray()));
+
+        // then
+        assertEquals(columns.getSize(), read.getSize());
+        assertArrayEquals(columns.getOrderIds(), read.getOrderIds());
+        assertArrayEquals(columns.getItemNameIds(), read.getItemNameIds());
+        assertArrayEquals(columns.getOrderPrices(), read.getOrderPrices());
+        assertArrayEquals(columns.getCounts(), read.getCounts());
+        assertEquals(columns.getItemNames(), read.getItemNames());
+    }
+
+    @Test
+    public void columnarBinaryNameTest() throws Exception {
+        // given - 이름이 없는 상품, writeUTF 한계(65535 바이트) 를 넘는 이름
+        String longName = "가".repeat(30_000); // UTF-8 로 90000 바이트
+        OrderItemColumns.Builder builder = new OrderItemColumns.Builder(4);
+        builder.add(1L, null, 1000, 1);
+        builder.add(1L, longName, 2000, 2);
+        builder.add(2L, null, 3000, 3);
+        OrderItemColumns columns = builder.build();
+
+        // when
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        columns.writeBinary(out);
+        OrderItemColumns read = OrderItemColumns.readBinary(new ByteArrayInputStream(out.toByteArray()));
+
+        // then
+        assertEquals(Arrays.asList(null, longName), read.getItemNames());
+        assertArrayEquals(new int[]{0, 1, 0}, read.getItemNameIds());
+    }
+}
@@ -0,0 +1,171 @@
+package jpabook.jpashop.repository.order.query;
+
+import jakarta.persistence.EntityManagerFactory;
+import jpabook.jpashop.Benchmark;
+import jpabook.jpashop.repository.support.ShardedQueryExecutor;
+import jpabook.jpashop.seed.DataSeeder;
+import jpabook.jpashop.seed.SeedProperties;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.*;
+import java.util.stream.LongStream;
+
+import static org.junit.Assert.*;
+
+/*
+v5 (findAllByDto_optimization) 의 상품 조회를 shard 로 나눠서 병렬로 실행하는 경우
+트랜잭션 밖에서 호출해야 병렬로 돌기 때문에 @Transactional 을 붙이지 않고, 대신 별도 컨텍스트(별도 in memory DB) 를 쓴다.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "jpashop.sharded-query.shard-size=200",
+        "jpashop.sharded-query.parallelism=4",
+        "decorator.datasource.p6spy.enable-logging=false",
+        "logging.level.org.hibernate.SQL=info",
+        "logging.level.org.hibernate.orm.jdbc.bind=info"
+})
+public class OrderQueryShardTest {
+
+    private static boolean seeded;
+
+    @Autowired OrderQueryRepository orderQueryRepository;
+    @Autowired ShardedQueryExecutor shardedQueryExecutor;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired TransactionTemplate transactionTemplate;
+    @Autowired EntityManagerFactory emf;
+    @Autowired DataSource dataSource;
+
+    @Before
+    public void setUp() {
+        if (seeded) return;
+        SeedProperties properties = new SeedProperties();
+        properties.setMembers(500);
+        properties.setItems(100);
+        properties.setCategories(10);
+        properties.setOrders(3_000);
+        properties.setChunkSize(1_000);
+        new DataSeeder(properties, jdbcTemplate, transactionTemplate, emf).seed();
+        seeded = true;
+    }
+
+    @After
+    public void tearDown() {
+        shardedQueryExecutor.setParallelism(4);
+    }
+
+    @Test
+    public void parallelSameAsSequential() throws Exception {
+        // given
+        shardedQueryExecutor.setParallelism(1);
+        List<OrderQueryDto> sequential = orderQueryRepository.findAllByDto_optimization();
+
+        // when
+        shardedQueryExecutor.setParallelism(4);
+        List<OrderQueryDto> parallel = orderQueryRepository.findAllByDto_optimization();
+
+        // then
+        assertEquals(sequential.size(), parallel.size());
+        for (int i = 0; i < parallel.size(); i++) {
+            assertEquals(sequential.get(i).getOrderId(), parallel.get(i).getOrderId());
+            assertEquals(sequential.get(i).getOrderItems(), parallel.get(i).getOrderItems());
+        }
+    }
+
+    @Test
+    public void shardsRunOnReadOnlyTransactions() throws Exception {
+        // given
+        List<Long> ids = LongStream.rangeClosed(1, 2_000).boxed().toList();
+        Set<String> workerThreads = Collections.synchronizedSet(new HashSet<>());
+        Set<Boolean> workerReadOnly = Collections.synchronizedSet(new HashSet<>());
+        Thread caller = Thread.currentThread();
+
+        // when
+        List<Long> result = shardedQueryExecutor.query(ids, shard -> {
+            if (Thread.currentThread() != caller) {
+                workerThreads.add(Thread.currentThread().toString());
+                workerReadOnly.add(TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+            }
+            sleep(20); // 한 스레드가 혼자 다 가져가지 않게
+            return shard;
+        });
+
+        // then
+        assertEquals("shard 순서대로 이어붙인다.", ids, result);
+        assertFalse("worker 스레드도 shard 를 나눠서 실행해야 한다.", workerThreads.isEmpty());
+        assertEquals("worker 는 readOnly 트랜잭션 안에서 실행", Set.of(true), workerReadOnly);
+    }
+
+    @Test
+    public void sequentialInTransaction() throws Exception {
+        List<Long> ids = LongStream.rangeClosed(1, 2_000).boxed().toList();
+        Set<Thread> threads = Collections.synchronizedSet(new HashSet<>());
+
+        transactionTemplate.executeWithoutResult(status -> shardedQueryExecutor.query(ids, shard -> {
+            threads.add(Thread.currentThread());
+            return List.of();
+        }));
+
+        assertEquals("트랜잭션 안에서는 호출한 스레드 혼자 실행", Set.of(Thread.currentThread()), threads);
+    }
+
+    @Test
+    public void noDeadlockWhenPoolIsFull() throws Exception {
+        // 커넥션 풀(기본 10개) 에서 1개만 남기고 다 잡아둔다 -> worker 는 커넥션을 못 받음
+        Integer orderCount = jdbcTemplate.queryForObject("select count(*) from orders", Integer.class);
+        List<Connection> held = new ArrayList<>();
+        try {
+            for (int i = 0; i < 9; i++) {
+                held.add(dataSource.getConnection());
+            }
+
+            // 호출한 스레드가 남은 shard 를 다 처리하니까 worker 를 기다리다 멈추지 않고 전부 돌려준다.
+            List<OrderQueryDto> result = orderQueryRepository.findAllByDto_optimization();
+
+            assertEquals(orderCount.intValue(), result.size());
+        } finally {
+            for (Connection connection : held) {
+                connection.close();
+            }
+        }
+    }
+
+    @Test
+    @Category(Benchmark.class)
+    public void tailLatency() throws Exception {
+        for (int parallelism : new int[]{1, 4}) {
+            shardedQueryExecutor.setParallelism(parallelism);
+            for (int i = 0; i < 10; i++) {
+                orderQueryRepository.findAllByDto_optimization(); // warm up
+            }
+            long[] latencies = new long[50];
+            for (int i = 0; i < latencies.length; i++) {
+                long begin = System.nanoTime();
+                orderQueryRepository.findAllByDto_optimization();
+                latencies[i] = (System.nanoTime() - begin) / 1_000;
+            }
+            Arrays.sort(latencies);
+            System.out.printf("[v5-shard] parallelism=%d cpus=%d p50=%dus p99=%dus%n", parallelism,
+                    Runtime.getRuntime().availableProcessors(), latencies[25], latencies[latencies.length * 99 / 100]);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package jpabook.jpashop.repository.support;
+
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+// 스프링 없이 도는 단위 테스트
+public class BatchLoaderTest {
+
+    @Test
+    public void chunkAndDedupeTest() throws Exception {
+        // given
+        List<List<Long>> calls = Collections.synchronizedList(new ArrayList<>());
+        BatchLoader<Long, String> loader = new BatchLoader<>(keys -> {
+            calls.add(new ArrayList<>(keys));
+            return keys.stream().collect(Collectors.toMap(k -> k, k -> List.of("v" + k)));
+        }, 3, null);
+
+        Map<Long, List<String>> loaded = new HashMap<>();
+        for (long i = 1; i <= 7; i++) {
+            long key = i;
+            loader.load(key, v -> loaded.put(key, v));
+        }
+        loader.load(1L, v -> loaded.put(100L, v)); // 같은 key 를 한번 더
+
+        // when
+        loader.dispatch();
+
+        // then
+        assertEquals("7개 key 를 3개씩 자르면 3번 조회", 3, calls.size());
+        assertEquals("중복 key 는 한번만 조회", 7, calls.stream().mapToInt(List::size).sum());
+        assertEquals(List.of("v1"), loaded.get(1L));
+        assertEquals("같은 key 의 callback 은 모두 호출", List.of("v1"), loaded.get(100L));
+        assertEquals(List.of("v7"), loaded.get(7L));
+    }
+
+    @Test
+    public void concurrentDispatchTest() throws Exception {
+        // given
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        Set<String> threads = Collections.synchronizedSet(new HashSet<>());
+        BatchLoader<Integer, Integer> loader = new BatchLoader<>(keys -> {
+            threads.add(Thread.currentThread().getName());
+            return keys.stream().collect(Collectors.toMap(k -> k, k -> List.of(k * 2)));
+        }, 10, executor);
+
+        int[] sum = new int[1];
+        for (int i = 0; i < 100; i++) {
+            loader.load(i, v -> sum[0] += v.get(0));
+        }
+
+        // when
+        loader.dispatch();
+        executor.shutdown();
+
+        // then
+        assertEquals(2 * (99 * 100 / 2), sum[0]);
+        assertFalse("executor 스레드에서 실행되어야 한다.", threads.contains(Thread.currentThread().getName()));
+    }
+
+    @Test
+    public void missingKeyTest() throws Exception {
+        BatchLoader<Long, String> loader = new BatchLoader<>(keys -> Map.of(), 10, null);
+        List<List<String>> loaded = new ArrayList<>();
+        loader.load(1L, loaded::add);
+
+        loader.dispatch();
+
+        assertEquals("결과가 없는 key 는 빈 리스트", List.of(List.of()), loaded);
+    }
+}
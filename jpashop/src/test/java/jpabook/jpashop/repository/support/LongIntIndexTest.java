@@ -0,0 +1,51 @@
+package jpabook.jpashop.repository.support;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+// 스프링 없이 도는 단위 테스트
+public class LongIntIndexTest {
+
+    @Test
+    public void putAndGet() throws Exception {
+        LongIntIndex index = new LongIntIndex(4);
+
+        index.put(10L, 0);
+        index.put(0L, 1); // key 0 도 저장 가능
+        index.put(-5L, 2);
+        index.put(10L, 3); // 같은 key 는 덮어쓰기
+
+        assertEquals(3, index.get(10L));
+        assertEquals(1, index.get(0L));
+        assertEquals(2, index.get(-5L));
+        assertEquals(LongIntIndex.MISSING, index.get(11L));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    public void growAndCompareWithHashMap() throws Exception {
+        // 처음 크기보다 훨씬 많이 넣어도 (여러번 grow) HashMap 과 같은 결과
+        LongIntIndex index = new LongIntIndex(1);
+        Map<Long, Integer> expected = new HashMap<>();
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextLong(50_000); // 중복 key 포함
+            index.put(key, i);
+            expected.put(key, i);
+        }
+
+        assertEquals(expected.size(), index.size());
+        expected.forEach((key, value) -> assertEquals(value.intValue(), index.get(key)));
+        assertEquals(LongIntIndex.MISSING, index.get(50_000L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeValue() throws Exception {
+        new LongIntIndex(1).put(1L, -1);
+    }
+}
@@ -0,0 +1,84 @@
+package jpabook.jpashop.seed;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.service.MemberService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.Assert.*;
+
+// seed 프로파일로 띄우면 시작할 때 DataSeeder 가 작은 규모로 데이터를 만든다.
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "jpashop.seed.members=1000",
+        "jpashop.seed.items=200",
+        "jpashop.seed.categories=20",
+        "jpashop.seed.orders=5000",
+        "jpashop.seed.chunk-size=700",
+        "jpashop.seed.batch-size=100",
+        "jpashop.sequence.allocation-size=20"
+})
+@ActiveProfiles("seed")
+public class DataSeederTest {
+
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired MemberService memberService;
+
+    @Test
+    public void seedTest() throws Exception {
+        assertEquals("InitDb 는 실행되지 않아야 한다.", 1000, count("member"));
+        assertEquals(200, count("item"));
+        assertEquals(20, count("category"));
+        assertEquals(5000, count("orders"));
+        assertEquals("주문마다 배송 1건", 5000, count("delivery"));
+        long orderItems = count("order_item");
+        assertTrue(orderItems >= 5000 && orderItems <= 5000 * 3);
+
+        Long canceledAndCompleted = jdbcTemplate.queryForObject(
+                "select count(*) from orders o join delivery d on o.delivery_id = d.delivery_id"
+                        + " where o.status = 'CANCEL' and d.status = 'COMP'", Long.class);
+        assertEquals("배송 완료된 주문은 취소 상태일 수 없다.", 0L, canceledAndCompleted.longValue());
+    }
+
+    @Test
+    public void skewTest() throws Exception {
+        // 회원 1000명이 평균 5건씩 주문하지만, zipf 분포라서 가장 많이 주문한 회원은 평균보다 훨씬 많아야 한다.
+        Long topMemberOrders = jdbcTemplate.queryForObject(
+                "select max(c) from (select count(*) c from orders group by member_id)", Long.class);
+        assertTrue("top member orders=" + topMemberOrders, topMemberOrders > 5 * 20);
+
+        Long topItemCount = jdbcTemplate.queryForObject(
+                "select max(c) from (select count(*) c from order_item group by item_id)", Long.class);
+        assertTrue("top item order items=" + topItemCount, topItemCount > count("order_item") / 200 * 20);
+    }
+
+    @Test
+    @Transactional // 다른 테스트의 건수에 영향을 주지 않게 롤백
+    public void sequenceTest() throws Exception {
+        // given
+        Long maxMemberId = jdbcTemplate.queryForObject("select max(member_id) from member", Long.class);
+        Member member = new Member();
+        member.setName("after-seed");
+        member.setAddress(new Address("서울", "강가", "123-123"));
+
+        // when
+        Long memberId = memberService.join(member);
+
+        // then
+        assertTrue("seed 이후 JPA 로 저장해도 id 가 겹치지 않아야 한다.", memberId > maxMemberId);
+        assertEquals("설정한 allocation size 로 옮겨서 빈 id 없이 이어진다.", maxMemberId + 1, memberId.longValue());
+        assertEquals(20L, jdbcTemplate.queryForObject(
+                "select increment from information_schema.sequences where sequence_name = 'MEMBER_SEQ'", Long.class).longValue());
+    }
+
+    private long count(String table) {
+        return jdbcTemplate.queryForObject("select count(*) from " + table, Long.class);
+    }
+}
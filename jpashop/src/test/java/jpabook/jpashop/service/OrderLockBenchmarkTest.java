@@ -0,0 +1,160 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.Benchmark;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.service.OrderLockExecutor.LockMode;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+/*
+동시 주문에서 낙관적 락(재시도) 과 비관적 락(select ... for update) 의 처리량을 비교하는 통합 벤치마크
+hot    : 모든 스레드가 상품 1개만 주문
+spread : 상품 여러개에 골고루 주문
+어느 모드든 주문이 성공한 만큼만 재고가 줄어야 한다. (lost update 없음) -> 이건 작게 돌려서 기본 test 에서 확인
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "jpashop.order.lock-mode=pessimistic")
+public class OrderLockBenchmarkTest {
+
+    private static final int THREADS = 4;
+    private static final int ORDERS_PER_THREAD = 10;
+    private static final int BENCHMARK_THREADS = 8;
+    private static final int BENCHMARK_ORDERS_PER_THREAD = 40;
+    private static final int SPREAD_ITEMS = 32;
+    private static final int STOCK = 100_000;
+
+    @Autowired OrderService orderService;
+    @Autowired ItemService itemService;
+    @Autowired MemberService memberService;
+    @Autowired OrderLockExecutor orderLockExecutor;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    @After
+    public void tearDown() {
+        orderLockExecutor.setLockMode(LockMode.PESSIMISTIC); // 같은 컨텍스트를 쓰는 다른 테스트에 남지 않게
+    }
+
+    @Test
+    public void lockModeFromProperty() throws Exception {
+        assertEquals("설정값으로 모드를 고를 수 있어야 한다.", LockMode.PESSIMISTIC, orderLockExecutor.getLockMode());
+    }
+
+    @Test
+    public void noLostUpdate() throws Exception {
+        Long memberId = createMember();
+        for (LockMode mode : LockMode.values()) {
+            orderLockExecutor.setLockMode(mode);
+            List<Long> itemIds = createBooks(1);
+
+            int success = run(THREADS, ORDERS_PER_THREAD, memberId, itemIds);
+
+            assertEquals(success, soldAndCheckStock(itemIds));
+            if (mode == LockMode.PESSIMISTIC) {
+                assertEquals("비관적 락은 충돌이 없어야 한다.", 0, conflicts());
+                assertEquals(THREADS * ORDERS_PER_THREAD, success);
+            }
+        }
+    }
+
+    @Test
+    @Category(Benchmark.class)
+    public void compareLockModes() throws Exception {
+        Long memberId = createMember();
+        for (LockMode mode : LockMode.values()) {
+            orderLockExecutor.setLockMode(mode);
+            measure(mode, "hot", memberId, createBooks(1));
+            measure(mode, "spread", memberId, createBooks(SPREAD_ITEMS));
+        }
+    }
+
+    private void measure(LockMode mode, String workload, Long memberId, List<Long> itemIds) throws Exception {
+        long begin = System.nanoTime();
+        int success = run(BENCHMARK_THREADS, BENCHMARK_ORDERS_PER_THREAD, memberId, itemIds);
+        long elapsed = System.nanoTime() - begin;
+
+        long exhausted = orderLockExecutor.getStats().values().stream().mapToLong(s -> s.getExhausted().sum()).sum();
+        System.out.printf("[order-lock] %-11s %-6s orders=%d success=%d conflicts=%d exhausted=%d throughput=%.0f orders/s%n",
+                mode, workload, BENCHMARK_THREADS * BENCHMARK_ORDERS_PER_THREAD, success, conflicts(), exhausted,
+                success / (elapsed / 1_000_000_000.0));
+    }
+
+    // 스레드들이 동시에 출발해서 상품을 돌아가며 1개씩 주문, 성공한 주문 수를 돌려준다.
+    private int run(int threads, int ordersPerThread, Long memberId, List<Long> itemIds) throws Exception {
+        orderLockExecutor.resetStats();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                int success = 0;
+                for (int i = 0; i < ordersPerThread; i++) {
+                    Long itemId = itemIds.get((thread * ordersPerThread + i) % itemIds.size());
+                    try {
+                        orderService.order(memberId, itemId, 1);
+                        success++;
+                    } catch (RuntimeException e) {
+                        // 재시도를 다 쓴 주문은 실패로 센다.
+                    }
+                }
+                return success;
+            }));
+        }
+        start.countDown();
+        int success = 0;
+        for (Future<Integer> f : futures) success += f.get();
+        executor.shutdown();
+        return success;
+    }
+
+    private long conflicts() {
+        return orderLockExecutor.getStats().values().stream().mapToLong(s -> s.getConflicts().sum()).sum();
+    }
+
+    private int soldAndCheckStock(List<Long> itemIds) {
+        int sold = 0;
+        for (Long itemId : itemIds) {
+            Integer stock = jdbcTemplate.queryForObject("SELECT stock_quantity FROM item WHERE item_id = ?", Integer.class, itemId);
+            Integer ordered = jdbcTemplate.queryForObject(
+                    "SELECT COALESCE(SUM(count), 0) FROM order_item WHERE item_id = ?", Integer.class, itemId);
+            assertEquals("주문된 수량만큼만 재고가 줄어야 한다.", STOCK - ordered, stock.intValue());
+            sold += ordered;
+        }
+        return sold;
+    }
+
+    private Long createMember() {
+        Member member = new Member();
+        member.setName("lock-bench");
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        return memberService.join(member);
+    }
+
+    private List<Long> createBooks(int count) {
+        List<Long> itemIds = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Book book = new Book();
+            book.setName("LOCK BOOK" + i);
+            book.setPrice(10000);
+            book.setStockQuantity(STOCK);
+            itemService.saveItem(book);
+            itemIds.add(book.getId());
+        }
+        return itemIds;
+    }
+}
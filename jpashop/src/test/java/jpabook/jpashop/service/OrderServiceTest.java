@@ -9,6 +9,9 @@ import jpabook.jpashop.domain.item.Book;
 import jpabook.jpashop.domain.item.Item;
 import jpabook.jpashop.exception.NotEnoughStockException;
 import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.service.OrderCommand.OrderLine;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,6 +19,9 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.Assert.*;
 
 // 사실 좋은 테스트란 스프링이나 db 연결 없이 메소드만 체크하는 단위 테스트 형식이 제일 좋다.
@@ -81,6 +87,68 @@ public class OrderServiceTest {
         assertEquals("주문이 취소된 상품은 그만큼 재고가 증가해야한다.", 10, item.getStockQuantity());
     }
 
+    @Test
+    public void bulkOrderTest() throws Exception {
+        // given
+        Member member = createMember();
+        Book book1 = createBook("시골 JPA", 10000, 100);
+        Book book2 = createBook("시골 SPRING", 20000, 100);
+
+        int orderCount = 20;
+        List<OrderCommand> commands = new ArrayList<>();
+        for (int i = 0; i < orderCount; i++) {
+            commands.add(new OrderCommand(member.getId(), List.of(
+                    new OrderLine(book1.getId(), 1),
+                    new OrderLine(book2.getId(), 2))));
+        }
+        em.flush();
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        boolean statisticsEnabled = statistics.isStatisticsEnabled();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        // when
+        List<Long> orderIds;
+        long statements;
+        try {
+            orderIds = orderService.orderAll(commands);
+            em.flush();
+            statements = statistics.getPrepareStatementCount();
+        } finally {
+            statistics.setStatisticsEnabled(statisticsEnabled); // 같은 컨텍스트를 쓰는 다른 테스트에 남지 않게
+        }
+
+        // then
+        assertEquals(orderCount, orderIds.size());
+        Order getOrder = orderRepository.findOne(orderIds.get(0));
+        assertEquals("주문 하나에 상품 두개", 2, getOrder.getOrderItems().size());
+        assertEquals(10000 + 20000 * 2, getOrder.getTotalPrice());
+        assertEquals("주문 수량만큼 재고가 줄어야 한다.", 100 - orderCount, book1.getStockQuantity());
+        assertEquals(100 - orderCount * 2, book2.getStockQuantity());
+        // 주문 20 + 배송 20 + 주문상품 40 insert 가 batch 로 묶여야 한다.
+        assertTrue("statements=" + statements, statements < 20);
+    }
+
+    @Test
+    public void bulkOrderNotEnoughStockTest() throws Exception {
+        // given
+        Member member = createMember();
+        Book book = createBook("시골 JPA", 10000, 10);
+        List<OrderCommand> commands = List.of(
+                new OrderCommand(member.getId(), List.of(new OrderLine(book.getId(), 6))),
+                new OrderCommand(member.getId(), List.of(new OrderLine(book.getId(), 6))));
+
+        // when
+        try {
+            orderService.orderAll(commands);
+            fail("주문 수량 합계가 재고보다 많으면 예외가 발생해야 한다.");
+        } catch (NotEnoughStockException e) {
+            // then
+            assertEquals("하나도 저장되지 않고 재고도 그대로", 10, book.getStockQuantity());
+            assertTrue(member.getOrders().isEmpty());
+        }
+    }
+
     private Book createBook(String name, int price, int stockQuantity) {
         Book book = new Book();
         book.setName(name);
@@ -0,0 +1,155 @@
+package jpabook.jpashop.service;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.*;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.order.query.MemberOrderSummaryDto;
+import jpabook.jpashop.repository.order.query.OrderStatusSummaryDto;
+import jpabook.jpashop.repository.order.query.OrderSummaryQueryRepository;
+import jpabook.jpashop.repository.order.query.OrderTotalDto;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+// 요약 테이블을 켜고 주문 / 취소했을 때 요약 테이블 결과가 매번 GROUP BY 한 결과와 같은지
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "jpashop.order-summary.enabled=true")
+@Transactional
+public class OrderSummaryServiceTest {
+
+    @Autowired EntityManager em;
+    @Autowired OrderService orderService;
+    @Autowired OrderSummaryService orderSummaryService;
+    @Autowired OrderSummaryQueryRepository orderSummaryQueryRepository;
+
+    LocalDate today = LocalDate.now();
+
+    @Before
+    public void setUp() {
+        orderSummaryService.rebuild(); // InitDb 주문은 OrderService 를 거치지 않았으니 요약 테이블에 먼저 반영
+    }
+
+    @Test
+    public void summaryMatchesGroupBy() throws Exception {
+        // given
+        Member member1 = createMember("summary1");
+        Member member2 = createMember("summary2");
+        Book book1 = createBook("JPA", 10000);
+        Book book2 = createBook("SPRING", 25000);
+
+        // when
+        orderService.order(member1.getId(), book1.getId(), 2);
+        Long canceledId = orderService.order(member1.getId(), book2.getId(), 1);
+        orderService.orderAll(List.of(
+                new OrderCommand(member2.getId(), List.of(new OrderCommand.OrderLine(book1.getId(), 1),
+                        new OrderCommand.OrderLine(book2.getId(), 3))),
+                new OrderCommand(member1.getId(), List.of(new OrderCommand.OrderLine(book2.getId(), 1)))));
+        orderService.cancelOrder(canceledId);
+        em.flush();
+        em.clear();
+
+        // then
+        List<MemberOrderSummaryDto> fromSummary = orderSummaryService.findMemberSummaries(today, today);
+        List<MemberOrderSummaryDto> groupBy = orderSummaryQueryRepository.findMemberSummaries(
+                today.atStartOfDay(), today.plusDays(1).atStartOfDay());
+        assertEquals(groupBy, fromSummary);
+
+        MemberOrderSummaryDto summary1 = fromSummary.stream()
+                .filter(s -> s.getMemberId().equals(member1.getId())).findFirst().orElseThrow();
+        assertEquals(2, summary1.getOrderCount());
+        assertEquals(10000 * 2 + 25000, summary1.getOrderAmount());
+        assertEquals(1, summary1.getCancelCount());
+        assertEquals(25000, summary1.getCancelAmount());
+
+        assertEquals(orderSummaryQueryRepository.findStatusSummaries(today.atStartOfDay(), today.plusDays(1).atStartOfDay()),
+                orderSummaryService.findStatusSummaries(today, today));
+    }
+
+    @Test
+    public void rebuildTest() throws Exception {
+        // given
+        Member member = createMember("rebuild");
+        Book book = createBook("JPA", 10000);
+        orderService.order(member.getId(), book.getId(), 3);
+        em.flush();
+        List<MemberOrderSummaryDto> maintained = orderSummaryService.findMemberSummaries(today, today);
+
+        // when
+        int rows = orderSummaryService.rebuild();
+        em.clear();
+
+        // then
+        assertTrue(rows > 0);
+        assertEquals("다시 계산해도 주문 때마다 갱신한 값과 같아야 한다.", maintained,
+                orderSummaryService.findMemberSummaries(today, today));
+    }
+
+    @Test
+    public void dateRangeTest() throws Exception {
+        // given -> 10일 전 주문 1건
+        Member member = createMember("range");
+        Book book = createBook("JPA", 10000);
+        Long orderId = orderService.order(member.getId(), book.getId(), 1);
+        em.find(Order.class, orderId).setOrderDate(LocalDateTime.now().minusDays(10));
+        em.flush();
+        em.clear();
+
+        // when
+        List<OrderTotalDto> recent = orderSummaryService.findOrderTotals(today.minusDays(5), today, 0, 100);
+        List<OrderTotalDto> past = orderSummaryService.findOrderTotals(today.minusDays(10), today.minusDays(10), 0, 100);
+
+        // then
+        assertTrue(recent.stream().noneMatch(o -> o.getOrderId().equals(orderId)));
+        assertEquals(1, past.size());
+        assertEquals(orderId, past.get(0).getOrderId());
+        assertEquals(10000, past.get(0).getTotalPrice());
+        assertEquals(1, past.get(0).getItemCount());
+    }
+
+    @Test
+    public void orderTotalsTest() throws Exception {
+        // when
+        List<OrderTotalDto> totals = orderSummaryService.findOrderTotals(today, today, 0, 100);
+
+        // then -> Order.getTotalPrice() 와 같아야 한다.
+        assertFalse(totals.isEmpty());
+        for (OrderTotalDto total : totals) {
+            assertEquals(em.find(Order.class, total.getOrderId()).getTotalPrice(), total.getTotalPrice());
+        }
+        List<OrderStatusSummaryDto> status = orderSummaryService.findStatusSummaries(today, today);
+        assertEquals(totals.stream().mapToLong(OrderTotalDto::getTotalPrice).sum(),
+                status.stream().mapToLong(OrderStatusSummaryDto::getAmount).sum());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidRangeTest() throws Exception {
+        orderSummaryService.findMemberSummaries(today, today.minusDays(1));
+    }
+
+    private Member createMember(String name) {
+        Member member = new Member();
+        member.setName(name);
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        em.persist(member);
+        return member;
+    }
+
+    private Book createBook(String name, int price) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(price);
+        book.setStockQuantity(100);
+        em.persist(book);
+        return book;
+    }
+}
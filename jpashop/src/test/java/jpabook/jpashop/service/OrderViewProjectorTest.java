@@ -0,0 +1,146 @@
+package jpabook.jpashop.service;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.order.query.*;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/*
+order_view 읽기 모델이 주문 / 취소 / 회원 수정 / 상품 수정 커밋 후에 원본(v5 조회) 과 같아지는지
+커밋이 되어야 이벤트가 처리되니까 @Transactional 을 붙이지 않고 별도 컨텍스트(별도 DB) 를 쓴다.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "jpashop.order-view.enabled=true")
+public class OrderViewProjectorTest {
+
+    @Autowired EntityManager em;
+    @Autowired TransactionTemplate transactionTemplate;
+    @Autowired OrderService orderService;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired OrderQueryRepository orderQueryRepository;
+    @Autowired OrderViewRepository orderViewRepository;
+
+    Member member;
+    Book book;
+
+    @Before
+    public void setUp() {
+        orderViewRepository.rebuild(); // InitDb 주문 backfill
+        transactionTemplate.executeWithoutResult(status -> {
+            member = new Member();
+            member.setName("view" + System.nanoTime());
+            member.setAddress(new Address("서울", "강가", "123-123"));
+            em.persist(member);
+            book = new Book();
+            book.setName("VIEW BOOK");
+            book.setPrice(10000);
+            book.setStockQuantity(1000);
+            em.persist(book);
+        });
+    }
+
+    @Test
+    public void rebuildTest() throws Exception {
+        assertViewMatchesSource();
+    }
+
+    @Test
+    public void orderAndCancelTest() throws Exception {
+        // when
+        Long orderId = orderService.order(member.getId(), book.getId(), 2);
+
+        // then
+        assertViewMatchesSource();
+        assertEquals(OrderStatus.ORDER, viewOf(orderId).getOrderStatus());
+
+        // when
+        orderService.cancelOrder(orderId);
+
+        // then
+        assertViewMatchesSource();
+        assertEquals(OrderStatus.CANCEL, viewOf(orderId).getOrderStatus());
+    }
+
+    @Test
+    public void bulkOrderTest() throws Exception {
+        List<Long> orderIds = orderService.orderAll(List.of(
+                new OrderCommand(member.getId(), List.of(new OrderCommand.OrderLine(book.getId(), 1))),
+                new OrderCommand(member.getId(), List.of(new OrderCommand.OrderLine(book.getId(), 3)))));
+
+        assertViewMatchesSource();
+        assertEquals(orderIds, OrderQueryAssembler.groupFlat(orderViewRepository.findByMemberId(member.getId())).stream()
+                .map(OrderQueryDto::getOrderId).toList());
+    }
+
+    @Test
+    public void memberUpdateTest() throws Exception {
+        Long orderId = orderService.order(member.getId(), book.getId(), 1);
+
+        memberService.update(member.getId(), member.getName() + "-renamed");
+
+        assertEquals(member.getName() + "-renamed", viewOf(orderId).getName());
+        assertViewMatchesSource();
+    }
+
+    @Test
+    public void itemRenameTest() throws Exception {
+        Long orderId = orderService.order(member.getId(), book.getId(), 1);
+
+        itemService.updateItem(book.getId(), "VIEW BOOK 2판", book.getPrice(), 999);
+
+        assertTrue(viewOf(orderId).getOrderItems().stream().allMatch(oi -> oi.getItemName().equals("VIEW BOOK 2판")));
+        assertViewMatchesSource();
+    }
+
+    @Test
+    public void rollbackNotProjected() throws Exception {
+        // 트랜잭션 안에서 주문했다가 롤백 -> order_view 에 남으면 안된다.
+        Long orderId = transactionTemplate.execute(status -> {
+            Long id = orderService.order(member.getId(), book.getId(), 1);
+            status.setRollbackOnly();
+            return id;
+        });
+
+        assertTrue(orderViewRepository.findAll().stream().noneMatch(v -> v.getOrderId().equals(orderId)));
+    }
+
+    private OrderQueryDto viewOf(Long orderId) {
+        return OrderQueryAssembler.groupFlat(orderViewRepository.findAll()).stream()
+                .filter(o -> o.getOrderId().equals(orderId))
+                .findFirst().orElseThrow();
+    }
+
+    // 원본 테이블을 조인해서 만든 v5 결과와 order_view 결과가 같은지
+    private void assertViewMatchesSource() {
+        List<OrderQueryDto> source = orderQueryRepository.findAllByDto_optimization().stream()
+                .sorted(Comparator.comparing(OrderQueryDto::getOrderId)).toList();
+        List<OrderQueryDto> view = OrderQueryAssembler.groupFlat(orderViewRepository.findAll());
+
+        assertEquals(source.size(), view.size());
+        for (int i = 0; i < source.size(); i++) {
+            OrderQueryDto s = source.get(i);
+            OrderQueryDto v = view.get(i);
+            assertEquals(s.getOrderId(), v.getOrderId());
+            assertEquals(s.getName(), v.getName());
+            assertEquals(s.getOrderStatus(), v.getOrderStatus());
+            assertEquals(s.getOrderDate(), v.getOrderDate());
+            assertEquals(s.getAddress().getCity(), v.getAddress().getCity());
+            assertEquals(s.getOrderItems(), v.getOrderItems());
+        }
+    }
+}
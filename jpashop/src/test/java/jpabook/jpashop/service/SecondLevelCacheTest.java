@@ -0,0 +1,113 @@
+package jpabook.jpashop.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static org.junit.Assert.*;
+
+// 2차 캐시는 트랜잭션이 커밋되어야 반영되기 때문에 테스트 전체에 @Transactional 을 걸지 않는다.
+// 서비스 호출 한번이 트랜잭션(영속성 컨텍스트) 하나
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class SecondLevelCacheTest {
+
+    private static final String ITEM_REGION = "item";
+
+    @Autowired ItemService itemService;
+    @Autowired MemberService memberService;
+    @Autowired OrderService orderService;
+    @Autowired EntityManagerFactory emf;
+
+    Statistics statistics;
+    boolean statisticsEnabled;
+
+    @Before
+    public void setUp() {
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statisticsEnabled = statistics.isStatisticsEnabled();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @After
+    public void tearDown() {
+        statistics.setStatisticsEnabled(statisticsEnabled); // 같은 컨텍스트를 쓰는 다른 테스트에 남지 않게
+    }
+
+    @Test
+    public void itemCacheTest() throws Exception {
+        // given
+        Book book = new Book();
+        book.setName("캐시 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        itemService.saveItem(book);
+        statistics.clear();
+
+        // when
+        itemService.findOne(book.getId());
+        itemService.findOne(book.getId());
+
+        // then
+        assertEquals("두번 모두 캐시에서 가져와야 한다.", 2, statistics.getDomainDataRegionStatistics(ITEM_REGION).getHitCount());
+    }
+
+    @Test
+    public void itemCacheInvalidationTest() throws Exception {
+        // given
+        Member member = new Member();
+        member.setName("cache-member");
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        memberService.join(member);
+
+        Book book = new Book();
+        book.setName("캐시 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        itemService.saveItem(book);
+        itemService.findOne(book.getId()); // 캐시 적재
+
+        // when
+        itemService.updateItem(book.getId(), "캐시 JPA 개정판", 20000, 10);
+        orderService.order(member.getId(), book.getId(), 3); // removeStock
+
+        // then
+        statistics.clear();
+        Item findItem = itemService.findOne(book.getId());
+        assertEquals("캐시에서 꺼내도 수정된 값이어야 한다.", "캐시 JPA 개정판", findItem.getName());
+        assertEquals(20000, findItem.getPrice());
+        assertEquals("주문한 수량만큼 캐시의 재고도 줄어야 한다.", 7, findItem.getStockQuantity());
+        assertEquals(1, statistics.getDomainDataRegionStatistics(ITEM_REGION).getHitCount());
+    }
+
+    @Test
+    public void queryCacheTest() throws Exception {
+        // given
+        memberService.findMembers();
+        statistics.clear();
+
+        // when
+        int before = memberService.findMembers().size();
+
+        // then
+        assertEquals("목록 쿼리가 캐시에서 나와야 한다.", 1, statistics.getQueryCacheHitCount());
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        // 회원이 추가되면 쿼리 캐시가 무효화 되어야 한다.
+        Member member = new Member();
+        member.setName("query-cache-member");
+        memberService.join(member);
+        assertEquals(before + 1, memberService.findMembers().size());
+    }
+}
@@ -0,0 +1,248 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.Benchmark;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+// 메모리 재고 예약 모드에서 동시에 주문이 몰려도 재고보다 많이 팔리지 않는지 확인
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "jpashop.stock.reservation.enabled=true")
+public class StockReservationStressTest {
+
+    // 불변식 확인용은 작게, 처리량은 benchmark 에서 크게
+    private static final int STOCK = 200;
+    private static final int THREADS = 4;
+    private static final int ORDERS_PER_THREAD = 100;
+    private static final int BENCHMARK_STOCK = 1000;
+    private static final int BENCHMARK_THREADS = 16;
+    private static final int BENCHMARK_ORDERS_PER_THREAD = 250;
+
+    @Autowired OrderService orderService;
+    @Autowired ItemService itemService;
+    @Autowired MemberService memberService;
+    @Autowired StockReservationService stockReservationService;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired TransactionTemplate transactionTemplate;
+
+    @Test
+    public void noOversellTest() throws Exception {
+        // given
+        Long memberId = createMember("stress-member");
+        Long itemId = createBook(STOCK);
+        AtomicInteger success = new AtomicInteger();
+        AtomicInteger soldOut = new AtomicInteger();
+
+        // when
+        orderConcurrently(THREADS, ORDERS_PER_THREAD, memberId, itemId, success, soldOut);
+        stockReservationService.flush();
+
+        // then
+        int total = THREADS * ORDERS_PER_THREAD;
+        assertEquals("재고만큼만 주문이 성공해야 한다.", STOCK, success.get());
+        assertEquals(total - STOCK, soldOut.get());
+        assertEquals("flush 후 DB 재고는 0", Integer.valueOf(0), stockQuantity(itemId));
+        Integer orderItemCount = jdbcTemplate.queryForObject(
+                "SELECT SUM(count) FROM order_item WHERE item_id = ?", Integer.class, itemId);
+        assertEquals("주문된 수량 합계도 재고와 같아야 한다.", Integer.valueOf(STOCK), orderItemCount);
+    }
+
+    @Test
+    @Category(Benchmark.class)
+    public void throughput() throws Exception {
+        Long memberId = createMember("stress-bench-member");
+        Long itemId = createBook(BENCHMARK_STOCK);
+        AtomicInteger success = new AtomicInteger();
+        AtomicInteger soldOut = new AtomicInteger();
+
+        long elapsed = orderConcurrently(BENCHMARK_THREADS, BENCHMARK_ORDERS_PER_THREAD, memberId, itemId, success, soldOut);
+        stockReservationService.flush();
+
+        int total = BENCHMARK_THREADS * BENCHMARK_ORDERS_PER_THREAD;
+        System.out.printf("[stock-reservation] attempts=%d success=%d soldOut=%d throughput=%.0f orders/s%n",
+                total, success.get(), soldOut.get(), total / (elapsed / 1_000_000_000.0));
+    }
+
+    // 스레드들이 동시에 출발해서 1개씩 주문, 걸린 시간(ns) 을 돌려준다.
+    private long orderConcurrently(int threads, int ordersPerThread, Long memberId, Long itemId,
+                                   AtomicInteger success, AtomicInteger soldOut) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < ordersPerThread; i++) {
+                    try {
+                        orderService.order(memberId, itemId, 1);
+                        success.incrementAndGet();
+                    } catch (NotEnoughStockException e) {
+                        soldOut.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> f : futures) f.get();
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+        return elapsed;
+    }
+
+    @Test
+    public void cancelTest() throws Exception {
+        // given
+        Long memberId = createMember("cancel-member");
+        Long itemId = createBook(10);
+        Long orderId = orderService.order(memberId, itemId, 4);
+        assertEquals(6, stockReservationService.getAvailable(itemId));
+
+        // when
+        orderService.cancelOrder(orderId);
+        stockReservationService.flush();
+
+        // then
+        assertEquals("취소하면 재고가 복구되어야 한다.", 10, stockReservationService.getAvailable(itemId));
+        assertEquals(Integer.valueOf(10), stockQuantity(itemId));
+    }
+
+    @Test
+    public void updateItemResetTest() throws Exception {
+        // given
+        Long memberId = createMember("reset-member");
+        Long itemId = createBook(10);
+        orderService.order(memberId, itemId, 3);
+        stockReservationService.flush();
+
+        // when
+        itemService.updateItem(itemId, "재고 수정", 10000, 50);
+
+        // then
+        assertEquals("직접 수정한 재고가 기준이 되어야 한다.", 50, stockReservationService.getAvailable(itemId));
+    }
+
+    /*
+    주문 / 롤백되는 주문 / 취소가 몰리는 중에 관리자가 상품을 계속 수정 (reset -> 카운터 교체)
+    관리자는 같은 트랜잭션에서 읽은 재고를 그대로 다시 쓰니까 재고 값 자체는 바꾸지 않는다.
+    -> 마지막 DB 재고 = 처음 재고 - (커밋된 주문 - 커밋된 취소), 메모리 재고도 같아야 한다.
+    (flush 안된 차감량을 버리거나, 교체된 뒤 롤백이 재고를 부풀리면 여기서 어긋난다)
+     */
+    @Test
+    public void resetWhileOrderingTest() throws Exception {
+        // given
+        Long memberId = createMember("reset-stress-member");
+        Long itemId = createBook(STOCK);
+
+        AtomicInteger ordered = new AtomicInteger();
+        AtomicInteger canceled = new AtomicInteger();
+        AtomicInteger rolledBack = new AtomicInteger();
+        AtomicInteger resets = new AtomicInteger();
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        // when
+        for (int t = 0; t < THREADS; t++) {
+            int seed = t;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < ORDERS_PER_THREAD; i++) {
+                    try {
+                        if ((i + seed) % 4 == 0) {
+                            // 주문 후 롤백
+                            transactionTemplate.executeWithoutResult(status -> {
+                                orderService.order(memberId, itemId, 1);
+                                status.setRollbackOnly();
+                            });
+                            rolledBack.incrementAndGet();
+                        } else {
+                            Long orderId = orderService.order(memberId, itemId, 1);
+                            ordered.incrementAndGet();
+                            if ((i + seed) % 5 == 0) {
+                                orderService.cancelOrder(orderId);
+                                canceled.incrementAndGet();
+                            }
+                        }
+                    } catch (NotEnoughStockException e) {
+                        // 품절
+                    }
+                }
+                return null;
+            }));
+        }
+        Future<?> admin = executor.submit(() -> {
+            while (running.get()) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        Item item = itemService.findOne(itemId);
+                        itemService.updateItem(itemId, "한정판 JPA " + resets.get(), item.getPrice(), item.getStockQuantity());
+                    });
+                    resets.incrementAndGet();
+                } catch (ObjectOptimisticLockingFailureException e) {
+                    // 그 사이 flush 가 재고를 바꿨다 -> 다시
+                }
+                if (resets.get() % 3 == 0) stockReservationService.flush(); // 스케줄러 말고도 수시로 flush
+                Thread.sleep(2);
+            }
+            return null;
+        });
+        for (Future<?> f : futures) f.get();
+        running.set(false);
+        admin.get();
+        executor.shutdown();
+        stockReservationService.flush();
+
+        // then
+        int net = ordered.get() - canceled.get();
+        System.out.printf("[stock-reservation-reset] ordered=%d canceled=%d rolledBack=%d resets=%d%n",
+                ordered.get(), canceled.get(), rolledBack.get(), resets.get());
+        assertTrue("주문하는 동안 카운터가 여러번 바뀌어야 의미가 있다.", resets.get() > 10);
+        assertTrue("재고보다 많이 팔리면 안 된다.", net <= STOCK);
+        assertEquals("DB 재고 = 처음 재고 - 순 주문량", Integer.valueOf(STOCK - net), stockQuantity(itemId));
+        assertEquals("메모리 재고도 DB 와 같아야 한다.", STOCK - net, stockReservationService.getAvailable(itemId));
+        Integer orderItemCount = jdbcTemplate.queryForObject(
+                "SELECT SUM(oi.count) FROM order_item oi JOIN orders o ON o.order_id = oi.order_id"
+                        + " WHERE oi.item_id = ? AND o.status = 'ORDER'", Integer.class, itemId);
+        assertEquals(Integer.valueOf(net), orderItemCount);
+    }
+
+    private Integer stockQuantity(Long itemId) {
+        return jdbcTemplate.queryForObject("SELECT stock_quantity FROM item WHERE item_id = ?", Integer.class, itemId);
+    }
+
+    private Long createBook(int stockQuantity) {
+        Book book = new Book();
+        book.setName("한정판 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(stockQuantity);
+        itemService.saveItem(book);
+        return book.getId();
+    }
+
+    private Long createMember(String name) {
+        Member member = new Member();
+        member.setName(name);
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        return memberService.join(member);
+    }
+}